@@ -3,11 +3,24 @@ package com.example.restaurantclient;
 import com.example.restaurantclient.api.AuthApi;
 import com.example.restaurantclient.api.ClientApi;
 import android.content.Context;
+import com.example.restaurantclient.models.ModelTypeAdapters;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import okhttp3.Cache;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 import android.content.SharedPreferences;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
  // реализует паттерн Singleton для управления Retrofit и OkHttpClient,
 
@@ -15,27 +28,89 @@ public class ApiClient {
 
     // 10.0.2.2 - специальный адрес для доступа к localhost из эмулятора Android
     private static final String BASE_URL = "http://10.0.2.2:8080/lab6_4kurs/";
+    // Доля запросов, для которых в лог пишется тело целиком; остальные логируются одной строкой
+    private static final double BODY_LOG_SAMPLE_RATE = 0.05;
 
     private static Retrofit retrofit = null;
     private static OkHttpClient okHttpClient = null;
+    private static Cache cache = null;
+    private static SessionStore sessionStore = null;
+    private static final HttpCachePolicy cachePolicy = new HttpCachePolicy();
+    // Модели разбираются написанными вручную адаптерами, без рефлексии (см. ModelTypeAdapters)
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapters())
+            .create();
+    // Объединение одинаковых одновременных запросов (@Coalesce в AuthApi / ClientApi)
+    private static final CoalescingCallAdapterFactory coalescing = new CoalescingCallAdapterFactory();
+    // Копия медленного GET и таймауты по замеренной задержке (@Hedge)
+    private static final HedgingCallAdapterFactory hedging = new HedgingCallAdapterFactory();
+    private static final NetworkMetrics metrics = new NetworkMetrics(HttpUrl.get(BASE_URL).encodedPath());
+    // Приоритеты запросов: правки пользователя не ждут фоновую синхронизацию
+    private static final RequestScheduler scheduler = new RequestScheduler();
+    // Реплики сервера: BASE_URL и адреса из R.array.server_replicas. Запросы строятся на BASE_URL,
+    // а уходят на реплику своей сессии, без сессии или при ее отказе - на самую быструю доступную
+    private static EndpointSelector endpointSelector = null;
 
-    public static Retrofit getClient(Context context) {
+    // synchronized: при старте клиент собирается в фоновом потоке (StartupOrchestrator),
+    // и Activity, обратившаяся к нему раньше времени, дождется готового вместо создания второго
+    public static synchronized Retrofit getClient(Context context) {
         // БЛОК ИНИЦИАЛИЗАЦИИ OKHTTP CLIENT
         // Создается только один раз благодаря проверке if (okHttpClient == null)
         if (okHttpClient == null) {
             // "session" - имя файла preferences, где хранятся данные аутентификации
             SharedPreferences preferences = context.getSharedPreferences("session", Context.MODE_PRIVATE);
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+            sessionStore = new SessionStore(preferences);
+            List<String> baseUrls = new ArrayList<>();
+            baseUrls.add(BASE_URL);
+            baseUrls.addAll(Arrays.asList(context.getResources().getStringArray(R.array.server_replicas)));
+            endpointSelector = new EndpointSelector(baseUrls);
+            endpointSelector.setSessionStore(sessionStore);
+            HttpLoggingInterceptor bodyLogging = new HttpLoggingInterceptor();
+            bodyLogging.setLevel(HttpLoggingInterceptor.Level.BODY);
+            HttpLoggingInterceptor basicLogging = new HttpLoggingInterceptor();
+            basicLogging.setLevel(HttpLoggingInterceptor.Level.BASIC);
+            // Дисковый HTTP-кэш: повторные GET уходят с If-None-Match / If-Modified-Since,
+            // и неизменившийся список клиентов приходит как 304 без тела
+            cache = new Cache(new File(context.getCacheDir(), "http"), HttpCachePolicy.CACHE_SIZE_BYTES);
+
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(dispatcher.getMaxRequests());
 
             // СОЗДАНИЕ OKHTTP CLIENT
             okHttpClient = new OkHttpClient.Builder()
                     // SessionInterceptor - кастомный интерцептор для автоматической
                     // обработки аутентификации (добавление токенов в заголовки)
-                    .addInterceptor(new SessionInterceptor(preferences))
-                    // Интерцептор логирования - для отладки сетевых запросов
-                    .addInterceptor(logging)
+                    .addInterceptor(new SessionInterceptor(sessionStore))
+                    // Метрики по эндпоинтам: задержка, байты, ошибки, повторы
+                    .addInterceptor(metrics.interceptor())
+                    .addInterceptor(cachePolicy.statsInterceptor())
+                    // Интерцептор логирования - для отладки сетевых запросов.
+                    // Тело (буферизация всего ответа) логируется только для выборки запросов,
+                    // потоковые ответы (X-Streaming) - никогда: логгер прочитал бы тело целиком
+                    .addInterceptor(chain -> {
+                        if (chain.request().header("X-Streaming") != null) {
+                            return chain.proceed(chain.request().newBuilder().removeHeader("X-Streaming").build());
+                        }
+                        boolean logBody = ThreadLocalRandom.current().nextDouble() < BODY_LOG_SAMPLE_RATE;
+                        return (logBody ? bodyLogging : basicLogging).intercept(chain);
+                    })
+                    // Сжатие больших тел запросов (X-Compress-Body) - после логирования,
+                    // чтобы в лог попадал читаемый JSON, и до сетевых интерцепторов,
+                    // чтобы метрики видели размер в сети
+                    .addInterceptor(new GzipRequestInterceptor())
+                    // Последним - ожидание слота своего класса; очередь Dispatcher на хост
+                    // больше не ограничивает, порядок определяет RequestScheduler
+                    .addInterceptor(scheduler.interceptor())
+                    // Выбор реплики - внутри полученного слота: повтор на другой реплике не встает в очередь заново.
+                    // Метрики и кэш-статистика выше видят логический URL, HTTP-кэш ниже - адрес реплики
+                    .addInterceptor(endpointSelector.interceptor())
+                    .dispatcher(dispatcher)
+                    // Политика кэширования для ответов без Cache-Control
+                    .addNetworkInterceptor(cachePolicy.networkInterceptor())
+                    .addNetworkInterceptor(metrics.networkInterceptor())
+                    .cache(cache)
                     .build();
+            endpointSelector.startProbing(okHttpClient);
         }
 
         // БЛОК ИНИЦИАЛИЗАЦИИ RETROFIT
@@ -44,13 +119,72 @@ public class ApiClient {
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)                    // Установка базового URL
                     .client(okHttpClient)                 // Использование настроенного OkHttpClient
-                    .addConverterFactory(GsonConverterFactory.create()) // Конвертер для преобразования
+                    .addCallAdapterFactory(coalescing)
+                    .addCallAdapterFactory(hedging)       // после coalescing: объединенные вызовы делят одну копию
+                    .addConverterFactory(metrics.converterFactory()) // Замер времени разбора ответа
+                    .addConverterFactory(new NullOnEmptyConverterFactory()) // Пустой ответ -> null
+                    .addConverterFactory(GsonConverterFactory.create(gson)) // Конвертер для преобразования
                     // JSON в Java-объекты и обратно
                     .build();
         }
         return retrofit;
     }
 
+    public static OkHttpClient getOkHttpClient() {
+        return okHttpClient;
+    }
+
+    public static String getBaseUrl() {
+        return BASE_URL;
+    }
+
+    public static SessionStore getSessionStore(Context context) {
+        getClient(context);
+        return sessionStore;
+    }
+
+    // Выход из аккаунта: сессия забывается вместе с репликой, за которой она закреплена
+    public static void clearSession(Context context) {
+        getClient(context);
+        sessionStore.clear();
+        endpointSelector.clearSession();
+    }
+
+    // Счетчики попаданий / промахов HTTP-кэша; null, пока клиент не создан
+    public static HttpCachePolicy.Stats getCacheStats() {
+        return cache != null ? cachePolicy.snapshot(cache) : null;
+    }
+
+    // Сколько сетевых запросов сэкономило объединение одинаковых вызовов
+    public static long getCoalescedCallCount() {
+        return coalescing.getSavedCallCount();
+    }
+
+    // Копии медленных запросов и текущие таймауты по эндпоинтам
+    public static Map<String, HedgingCallAdapterFactory.EndpointStats> getHedgingStats() {
+        return hedging.snapshot();
+    }
+
+    // Метрики сетевых запросов по эндпоинтам
+    public static NetworkMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Очереди запросов по приоритетам и время ожидания в них
+    public static RequestScheduler getScheduler() {
+        return scheduler;
+    }
+
+    // Доступность и задержка каждой реплики сервера; пусто, пока клиент не создан
+    public static List<EndpointSelector.EndpointStats> getEndpointStats() {
+        return endpointSelector != null ? endpointSelector.snapshot() : Collections.emptyList();
+    }
+
+    // Тот же Gson, что и у Retrofit - для ручного разбора JSON (потоковая загрузка, локальное хранилище)
+    public static Gson getGson() {
+        return gson;
+    }
+
     public static AuthApi getAuthApi(Context context) {
         return getClient(context).create(AuthApi.class);
     }
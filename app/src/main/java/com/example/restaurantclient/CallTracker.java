@@ -0,0 +1,78 @@
+package com.example.restaurantclient;
+
+import android.os.Handler;
+import android.os.Looper;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+ // Запросы и отложенные действия одного экрана.
+ // enqueue() запоминает вызов, cancelAll() (из onDestroy) отменяет все незавершенные:
+ // их колбэки больше не вызываются, и ответ не попадет в уничтоженную Activity.
+ // debounce() схлопывает серию одинаковых запросов (например, перезагрузок списка)
+ // в один запуск после паузы
+
+public class CallTracker {
+    private final Set<Call<?>> calls = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled = false;
+    private Handler handler;
+
+    public <T> void enqueue(Call<T> call, Callback<T> callback) {
+        if (cancelled) {
+            return;
+        }
+        calls.add(call);
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> c, Response<T> response) {
+                if (calls.remove(call) && !cancelled) {
+                    callback.onResponse(c, response);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<T> c, Throwable t) {
+                if (calls.remove(call) && !cancelled) {
+                    callback.onFailure(c, t);
+                }
+            }
+        });
+    }
+
+    // Запускает action через delayMs; повторный вызов с тем же action до запуска
+    // переносит его на delayMs от последнего вызова. Только из главного потока
+    public void debounce(Runnable action, long delayMs) {
+        if (cancelled) {
+            return;
+        }
+        if (handler == null) {
+            handler = new Handler(Looper.getMainLooper());
+        }
+        handler.removeCallbacks(action);
+        handler.postDelayed(action, delayMs);
+    }
+
+    public int getActiveCount() {
+        return calls.size();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancelAll() {
+        cancelled = true;
+        if (handler != null) {
+            handler.removeCallbacksAndMessages(null);
+        }
+        List<Call<?>> active = new ArrayList<>(calls);
+        calls.clear();
+        for (Call<?> call : active) {
+            call.cancel();
+        }
+    }
+}
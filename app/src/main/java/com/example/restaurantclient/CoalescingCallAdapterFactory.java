@@ -0,0 +1,217 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.Coalesce;
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+ // Single-flight для запросов с аннотацией @Coalesce: одинаковые (метод + URL) вызовы enqueue,
+ // сделанные пока первый такой запрос еще выполняется, не создают новый сетевой запрос,
+ // а получают тот же Response. Синхронный execute() не объединяется.
+ // Отмененный вызов, как и обычный Call, получает onFailure с IOException("Canceled")
+
+public class CoalescingCallAdapterFactory extends CallAdapter.Factory {
+    private final Map<String, Flight<?>> inFlight = new HashMap<>();
+    private final AtomicLong savedCalls = new AtomicLong();
+
+    // Сколько сетевых запросов удалось не отправлять
+    public long getSavedCallCount() {
+        return savedCalls.get();
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class || !isCoalesced(annotations)) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        final CallAdapter<Object, Call<Object>> delegate =
+                (CallAdapter<Object, Call<Object>>) retrofit.nextCallAdapter(this, returnType, annotations);
+        // Там же, где Retrofit вызывает колбэки (главный поток на Android); null - в потоке вызова
+        final Executor callbackExecutor = retrofit.callbackExecutor();
+        return new CallAdapter<Object, Call<Object>>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Call<Object> adapt(Call<Object> call) {
+                return new CoalescedCall<>(delegate.adapt(call), callbackExecutor);
+            }
+        };
+    }
+
+    private static boolean isCoalesced(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Coalesce) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String keyOf(Request request) {
+        return request.method() + " " + request.url();
+    }
+
+    // Один сетевой запрос и все, кто ждет его результата
+    private final class Flight<T> implements Callback<T> {
+        final String key;
+        final Call<T> call;
+        final List<CoalescedCall<T>> waiters = new ArrayList<>();
+
+        Flight(String key, Call<T> call) {
+            this.key = key;
+            this.call = call;
+        }
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            for (CoalescedCall<T> waiter : finish()) {
+                waiter.callback.onResponse(waiter, response);
+            }
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            for (CoalescedCall<T> waiter : finish()) {
+                waiter.callback.onFailure(waiter, t);
+            }
+        }
+
+        private List<CoalescedCall<T>> finish() {
+            synchronized (inFlight) {
+                if (inFlight.get(key) == this) {
+                    inFlight.remove(key);
+                }
+                List<CoalescedCall<T>> result = new ArrayList<>();
+                for (CoalescedCall<T> waiter : waiters) {
+                    if (!waiter.canceled) {
+                        result.add(waiter);
+                    }
+                }
+                waiters.clear();
+                return result;
+            }
+        }
+    }
+
+    private final class CoalescedCall<T> implements Call<T> {
+        private final Call<T> delegate;
+        private final Executor callbackExecutor;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+        private Callback<T> callback;
+        private Flight<T> flight;
+
+        CoalescedCall(Call<T> delegate, Executor callbackExecutor) {
+            this.delegate = delegate;
+            this.callbackExecutor = callbackExecutor;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void enqueue(Callback<T> callback) {
+            if (executed) {
+                throw new IllegalStateException("Already executed.");
+            }
+            executed = true;
+            this.callback = callback;
+
+            String key = keyOf(delegate.request());
+            boolean start;
+            synchronized (inFlight) {
+                Flight<T> existing = (Flight<T>) inFlight.get(key);
+                start = existing == null;
+                flight = start ? new Flight<>(key, delegate) : existing;
+                flight.waiters.add(this);
+                if (start) {
+                    inFlight.put(key, flight);
+                }
+            }
+
+            if (start) {
+                delegate.enqueue(flight);
+            } else {
+                savedCalls.incrementAndGet();
+            }
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            executed = true;
+            return delegate.execute();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        // Отменяется только этот вызов; сетевой запрос - когда отменили всех ожидающих
+        @Override
+        public void cancel() {
+            canceled = true;
+            Flight<T> current = flight;
+            if (current == null) {
+                delegate.cancel();
+                return;
+            }
+            boolean waiting;
+            boolean cancelNetwork;
+            synchronized (inFlight) {
+                // false - результат уже отдается этому вызову (Flight.finish())
+                waiting = current.waiters.remove(this);
+                cancelNetwork = waiting && current.waiters.isEmpty();
+                if (cancelNetwork && inFlight.get(current.key) == current) {
+                    inFlight.remove(current.key);
+                }
+            }
+            if (cancelNetwork) {
+                current.call.cancel();
+            }
+            if (waiting) {
+                Runnable failure = () -> callback.onFailure(this, new IOException("Canceled"));
+                if (callbackExecutor != null) {
+                    callbackExecutor.execute(failure);
+                } else {
+                    failure.run();
+                }
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new CoalescedCall<>(delegate.clone(), callbackExecutor);
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.restaurantclient;
+
+import okhttp3.Call;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+ // Выбор реплики сервера для каждого запроса. Retrofit и все сервисы по-прежнему строятся на одном
+ // логическом базовом URL (первый в списке), а interceptor() подменяет его на реплику.
+ // Сессия (JSESSIONID) есть только у реплики, которая ее выдала, поэтому запросы идут туда,
+ // откуда пришел Set-Cookie с JSESSIONID, а реплика сессии сохраняется в SessionStore.
+ // Без сессии выбирается реплика с наименьшей недавней задержкой (EWMA по ответам и проверкам);
+ // реплики без замеров и еще не проверенные после отказа - только если замеренных доступных нет.
+ // Реплика, не ответившая или вернувшая 502/503/504, на время выводится из ротации (пауза растет
+ // до MAX_DOWN_MS), а идемпотентный запрос (GET/HEAD/PUT/DELETE или с Idempotency-Key) тут же
+ // повторяется на следующей - только тогда сессия переходит на другую реплику и остается там.
+ // Любой другой запрос (вход, регистрация, пачка импорта) повторяется, только если соединение
+ // с репликой не установилось: до сервера он не дошел, и повтор ничего не выполнит дважды.
+ // Фоновая проверка (HEAD базового URL раз в PROBE_INTERVAL_MS) возвращает реплики в ротацию
+ // и обновляет задержки
+
+public class EndpointSelector {
+    public static final long PROBE_INTERVAL_MS = 30_000;
+    private static final long PROBE_TIMEOUT_MS = 3_000;
+    public static final long MIN_DOWN_MS = 5_000;
+    public static final long MAX_DOWN_MS = 60_000;
+    // Вес нового замера в скользящей средней задержки
+    private static final double EWMA_ALPHA = 0.3;
+
+    private final HttpUrl logicalBase;
+    private final List<Replica> replicas = new ArrayList<>();
+    // Реплика текущей сессии; null - сессии нет, выбор по задержке
+    private Replica sessionReplica;
+    // Где реплика сессии переживает перезапуск; null - только в памяти
+    private SessionStore sessionStore;
+    private ScheduledExecutorService prober;
+    private ScheduledFuture<?> probeTask;
+
+    // baseUrls - адреса реплик; первый из них - тот, с которым строится Retrofit
+    public EndpointSelector(List<String> baseUrls) {
+        if (baseUrls.isEmpty()) {
+            throw new IllegalArgumentException("baseUrls is empty");
+        }
+        for (String baseUrl : baseUrls) {
+            replicas.add(new Replica(HttpUrl.get(baseUrl)));
+        }
+        logicalBase = replicas.get(0).baseUrl;
+    }
+
+    // Восстанавливает реплику сохраненной сессии и дальше записывает туда каждую смену
+    public synchronized void setSessionStore(SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+        String saved = sessionStore.getSessionId() != null ? sessionStore.getReplica() : null;
+        for (Replica replica : replicas) {
+            if (replica.baseUrl.toString().equals(saved)) {
+                sessionReplica = replica;
+            }
+        }
+    }
+
+    // Выход из аккаунта: следующая сессия закрепится за репликой, которая ее выдаст
+    public synchronized void clearSession() {
+        sessionReplica = null;
+    }
+
+    public Interceptor interceptor() {
+        return chain -> {
+            Request request = chain.request();
+            String suffix = suffixOf(request.url());
+            if (suffix == null) {
+                return chain.proceed(request);
+            }
+            boolean idempotent = isIdempotent(request) && (request.body() == null || !request.body().isOneShot());
+            List<Replica> tried = new ArrayList<>();
+            IOException lastError = null;
+            Replica replica;
+            while ((replica = choose(tried)) != null) {
+                tried.add(replica);
+                boolean hasNext = tried.size() < replicas.size() && !chain.call().isCanceled();
+                try {
+                    Response response = proceed(chain, request, replica, suffix);
+                    if (idempotent && hasNext && isReplicaFailure(response.code())) {
+                        countFailover(replica);
+                        response.close();
+                        continue;
+                    }
+                    return response;
+                } catch (IOException e) {
+                    if (!hasNext || !(idempotent || isNotSent(e))) {
+                        throw e;
+                    }
+                    countFailover(replica);
+                    lastError = e;
+                }
+            }
+            throw lastError != null ? lastError : new IOException("Нет доступных реплик сервера");
+        };
+    }
+
+    // Запрос к одной реплике с учетом задержки и доступности
+    private Response proceed(Interceptor.Chain chain, Request request, Replica replica, String suffix) throws IOException {
+        Request routed = request.newBuilder().url(replica.resolve(suffix)).build();
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(routed);
+        } catch (IOException e) {
+            if (!chain.call().isCanceled()) {
+                markFailed(replica);
+            }
+            throw e;
+        }
+        if (isReplicaFailure(response.code())) {
+            markFailed(replica);
+        } else if (response.networkResponse() != null) {
+            // Ответ из HTTP-кэша ничего не говорит о скорости реплики
+            markAlive(replica, System.nanoTime() - start);
+            onReplicaResponse(replica, issuesSession(response));
+        }
+        return response;
+    }
+
+    private static boolean issuesSession(Response response) {
+        Headers headers = response.headers();
+        for (int i = 0, size = headers.size(); i < size; i++) {
+            if ("Set-Cookie".equalsIgnoreCase(headers.name(i))
+                    && SessionInterceptor.parseSessionId(headers.value(i)) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Новая сессия закрепляется за выдавшей ее репликой. Ответ другой реплики при уже закрепленной
+    // сессии бывает только после отказа закрепленной (см. choose) - сессия переходит на ответившую
+    private void onReplicaResponse(Replica replica, boolean issuedSession) {
+        SessionStore store;
+        synchronized (this) {
+            boolean failover = sessionReplica != null && replica != sessionReplica;
+            if (!issuedSession && !failover) {
+                return;
+            }
+            sessionReplica = replica;
+            store = sessionStore;
+        }
+        // Запись и для той же реплики: после выхода из аккаунта SessionStore ее уже забыл
+        if (store != null) {
+            store.setReplica(replica.baseUrl.toString());
+        }
+    }
+
+    // Часть URL после логического базового адреса; null - запрос не к нашему серверу
+    private String suffixOf(HttpUrl url) {
+        if (!url.scheme().equals(logicalBase.scheme()) || !url.host().equals(logicalBase.host())
+                || url.port() != logicalBase.port()) {
+            return null;
+        }
+        String path = url.encodedPath();
+        String basePath = logicalBase.encodedPath();
+        if (!path.startsWith(basePath)) {
+            return null;
+        }
+        String query = url.encodedQuery();
+        return path.substring(basePath.length()) + (query != null ? "?" + query : "");
+    }
+
+    static boolean isIdempotent(Request request) {
+        String method = request.method();
+        return "GET".equals(method) || "HEAD".equals(method) || "PUT".equals(method)
+                || "DELETE".equals(method) || "OPTIONS".equals(method)
+                || request.header("Idempotency-Key") != null;
+    }
+
+    // Соединение не установлено - запрос не ушел на сервер
+    private static boolean isNotSent(IOException e) {
+        return e instanceof ConnectException || e instanceof NoRouteToHostException
+                || e instanceof UnknownHostException;
+    }
+
+    // Ответ самой реплики о своей неисправности - 500 и 4xx относятся к запросу и на другой не повторяются
+    private static boolean isReplicaFailure(int code) {
+        return code == 502 || code == 503 || code == 504;
+    }
+
+    // Реплика сессии, если она доступна и еще не пробовалась для этого запроса. Иначе - доступная
+    // с наименьшей задержкой среди замеренных; затем без замеров и, последними, те, у которых
+    // закончилась пауза после отказа, но нового ответа еще не было (обе группы - по порядку списка).
+    // Если выведены из ротации все, берется та, что вернется раньше других
+    private synchronized Replica choose(List<Replica> exclude) {
+        long now = System.nanoTime();
+        if (sessionReplica != null && !exclude.contains(sessionReplica) && !isDown(sessionReplica, now)) {
+            sessionReplica.calls++;
+            return sessionReplica;
+        }
+        Replica best = null;
+        Replica soonest = null;
+        for (Replica replica : replicas) {
+            if (exclude.contains(replica)) {
+                continue;
+            }
+            if (isDown(replica, now)) {
+                if (soonest == null || replica.downUntil - soonest.downUntil < 0) {
+                    soonest = replica;
+                }
+            } else if (best == null || isBetter(replica, best)) {
+                best = replica;
+            }
+        }
+        Replica chosen = best != null ? best : soonest;
+        if (chosen != null) {
+            chosen.calls++;
+        }
+        return chosen;
+    }
+
+    private static boolean isBetter(Replica candidate, Replica best) {
+        int candidateRank = rank(candidate);
+        int bestRank = rank(best);
+        if (candidateRank != bestRank) {
+            return candidateRank < bestRank;
+        }
+        return candidateRank == 0 && candidate.latencyMs < best.latencyMs;
+    }
+
+    // 0 - отвечала и задержка известна, 1 - замеров еще не было, 2 - пауза после отказа истекла, но реплика не проверена
+    private static int rank(Replica replica) {
+        if (replica.down) {
+            return 2;
+        }
+        return replica.samples > 0 ? 0 : 1;
+    }
+
+    private static boolean isDown(Replica replica, long now) {
+        return replica.down && replica.downUntil - now > 0;
+    }
+
+    private synchronized void markAlive(Replica replica, long latencyNanos) {
+        double latencyMs = latencyNanos / 1_000_000.0;
+        replica.latencyMs = replica.samples == 0 ? latencyMs : replica.latencyMs + EWMA_ALPHA * (latencyMs - replica.latencyMs);
+        replica.samples++;
+        replica.down = false;
+        replica.downMs = 0;
+    }
+
+    private synchronized void countFailover(Replica replica) {
+        replica.failovers++;
+    }
+
+    private synchronized void markFailed(Replica replica) {
+        replica.failures++;
+        replica.down = true;
+        replica.downMs = replica.downMs == 0 ? MIN_DOWN_MS : Math.min(MAX_DOWN_MS, replica.downMs * 2);
+        replica.downUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(replica.downMs);
+    }
+
+    // Проверки идут через отдельный клиент поверх общего пула соединений: без интерцепторов
+    // приложения, с коротким таймаутом. Вызывается после сборки основного OkHttpClient
+    public synchronized void startProbing(OkHttpClient client) {
+        if (replicas.size() == 1 || probeTask != null) {
+            return;
+        }
+        OkHttpClient probeClient = new OkHttpClient.Builder()
+                .connectionPool(client.connectionPool())
+                .callTimeout(PROBE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .build();
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "endpoint-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        probeTask = prober.scheduleWithFixedDelay(() -> probeAll(probeClient), 0, PROBE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopProbing() {
+        if (probeTask != null) {
+            probeTask.cancel(true);
+            prober.shutdown();
+            probeTask = null;
+            prober = null;
+        }
+    }
+
+    void probeAll(OkHttpClient probeClient) {
+        for (Replica replica : replicas) {
+            Call call = probeClient.newCall(new Request.Builder().url(replica.baseUrl).head().build());
+            long start = System.nanoTime();
+            try (Response response = call.execute()) {
+                // Любой ответ, кроме 502/503/504, значит, что сервер жив (HEAD корня может дать 404/405)
+                if (isReplicaFailure(response.code())) {
+                    markFailed(replica);
+                } else {
+                    markAlive(replica, System.nanoTime() - start);
+                }
+            } catch (IOException e) {
+                markFailed(replica);
+            }
+        }
+    }
+
+    public synchronized List<EndpointStats> snapshot() {
+        long now = System.nanoTime();
+        List<EndpointStats> result = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            result.add(new EndpointStats(replica.baseUrl.toString(), !isDown(replica, now),
+                    replica.samples == 0 ? -1 : replica.latencyMs, replica.calls, replica.failures, replica.failovers));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static class Replica {
+        final HttpUrl baseUrl;
+        // Поля ниже меняются под synchronized (EndpointSelector.this)
+        double latencyMs = 0;
+        long samples = 0;
+        // Выведена из ротации до downUntil (System.nanoTime)
+        boolean down = false;
+        long downUntil = 0;
+        long downMs = 0;
+        long calls = 0;
+        long failures = 0;
+        long failovers = 0;
+
+        Replica(HttpUrl baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        HttpUrl resolve(String suffix) {
+            return HttpUrl.get(baseUrl + suffix);
+        }
+    }
+
+    public static class EndpointStats {
+        public final String baseUrl;
+        public final boolean healthy;
+        // Скользящая средняя задержки; -1 - замеров еще не было
+        public final double latencyMs;
+        public final long calls;
+        public final long failures;
+        // Сколько запросов после ошибки этой реплики ушло на другую
+        public final long failovers;
+
+        EndpointStats(String baseUrl, boolean healthy, double latencyMs, long calls, long failures, long failovers) {
+            this.baseUrl = baseUrl;
+            this.healthy = healthy;
+            this.latencyMs = latencyMs;
+            this.calls = calls;
+            this.failures = failures;
+            this.failovers = failovers;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s %s latency=%.1fms calls=%d failures=%d failovers=%d",
+                    baseUrl, healthy ? "up" : "down", latencyMs, calls, failures, failovers);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.restaurantclient;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.GzipSink;
+import okio.Okio;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+ // Сжимает gzip тела больших запросов, помеченных заголовком X-Compress-Body (clients/batch).
+ // Ответы OkHttp и так запрашивает и распаковывает сам (Accept-Encoding: gzip),
+ // а тело запроса без этого уходит как есть.
+ // Маленькие и несжимаемые тела отправляются без изменений.
+ // Если сервер не принимает Content-Encoding (415), запрос повторяется без сжатия,
+ // и для этого сервера сжатие больше не включается
+
+public class GzipRequestInterceptor implements Interceptor {
+    public static final String HEADER = "X-Compress-Body";
+    // Меньше этого gzip почти ничего не выигрывает, а заголовки и служебные байты добавляет
+    public static final long DEFAULT_MIN_BYTES = 1024;
+
+    private final long minBytes;
+    // Хосты, ответившие 415 на сжатое тело
+    private final Set<String> unsupportedHosts = ConcurrentHashMap.newKeySet();
+
+    public GzipRequestInterceptor() {
+        this(DEFAULT_MIN_BYTES);
+    }
+
+    public GzipRequestInterceptor(long minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request original = chain.request();
+        if (original.header(HEADER) == null) {
+            return chain.proceed(original);
+        }
+        Request plain = original.newBuilder().removeHeader(HEADER).build();
+        RequestBody body = plain.body();
+        String host = plain.url().host();
+        if (body == null || plain.header("Content-Encoding") != null || unsupportedHosts.contains(host)) {
+            return chain.proceed(plain);
+        }
+        long length = body.contentLength();
+        if (length >= 0 && length < minBytes) {
+            return chain.proceed(plain);
+        }
+
+        ByteString compressed = gzip(body);
+        if (length >= 0 && compressed.size() >= length) {
+            return chain.proceed(plain);
+        }
+        Request gzipped = plain.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(plain.method(), new CompressedBody(body.contentType(), compressed))
+                .build();
+        Response response = chain.proceed(gzipped);
+        if (response.code() != 415) {
+            return response;
+        }
+        // Тело не принято и не обработано - повтор без сжатия безопасен
+        unsupportedHosts.add(host);
+        response.close();
+        return chain.proceed(plain);
+    }
+
+    private static ByteString gzip(RequestBody body) throws IOException {
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            body.writeTo(sink);
+        }
+        return buffer.readByteString();
+    }
+
+    // Готовое сжатое тело известной длины - его можно отправить повторно
+    private static class CompressedBody extends RequestBody {
+        private final MediaType contentType;
+        private final ByteString bytes;
+
+        CompressedBody(MediaType contentType, ByteString bytes) {
+            this.contentType = contentType;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return bytes.size();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            sink.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.Hedge;
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+ // Дублирование медленных запросов для GET с аннотацией @Hedge.
+ // По каждому эндпоинту ("GET clients") копятся задержки ответов. Когда замеров достаточно:
+ // - если ответа нет дольше p95, отправляется копия запроса (call.clone()), берется первый ответ,
+ //   второй запрос отменяется; копий не больше HEDGE_BUDGET от числа вызовов;
+ // - таймаут вызова - p99 * TIMEOUT_FACTOR в пределах [minTimeoutMs, maxTimeoutMs].
+ // Ошибка одной попытки ждет результата второй. Синхронный execute() не дублируется.
+ // Добавляется после CoalescingCallAdapterFactory: объединенные вызовы делят одну пару попыток
+
+public class HedgingCallAdapterFactory extends CallAdapter.Factory {
+    // До этого числа замеров эндпоинт работает как обычно
+    static final int MIN_SAMPLES = 20;
+    // Доля вызовов, для которых разрешена копия, - чтобы при общей деградации не удвоить нагрузку
+    static final double HEDGE_BUDGET = 0.1;
+    static final double TIMEOUT_FACTOR = 4;
+    // Ниже этой задержки копия только добавляет нагрузку
+    private static final long MIN_HEDGE_DELAY_MS = 20;
+    public static final long DEFAULT_MIN_TIMEOUT_MS = 3_000;
+    public static final long DEFAULT_MAX_TIMEOUT_MS = 30_000;
+
+    private final long minTimeoutMs;
+    private final long maxTimeoutMs;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hedging-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HedgingCallAdapterFactory() {
+        this(DEFAULT_MIN_TIMEOUT_MS, DEFAULT_MAX_TIMEOUT_MS);
+    }
+
+    public HedgingCallAdapterFactory(long minTimeoutMs, long maxTimeoutMs) {
+        this.minTimeoutMs = minTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class || !isHedged(annotations)) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        final CallAdapter<Object, Call<Object>> delegate =
+                (CallAdapter<Object, Call<Object>>) retrofit.nextCallAdapter(this, returnType, annotations);
+        return new CallAdapter<Object, Call<Object>>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Call<Object> adapt(Call<Object> call) {
+                Call<Object> adapted = delegate.adapt(call);
+                // Неидемпотентный запрос повторять нельзя - аннотация на нем игнорируется
+                return "GET".equals(call.request().method()) ? new HedgedCall<>(adapted) : adapted;
+            }
+        };
+    }
+
+    private static boolean isHedged(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Hedge) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Map<String, EndpointStats> snapshot() {
+        Map<String, EndpointStats> result = new TreeMap<>();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            double[] latency = endpoint.latency.percentiles();
+            result.put(entry.getKey(), new EndpointStats(endpoint.calls.get(), endpoint.hedges.get(),
+                    endpoint.hedgeWins.get(), latency[1], timeoutMillis(endpoint)));
+        }
+        return result;
+    }
+
+    private Endpoint endpointFor(Request request) {
+        return endpoints.computeIfAbsent(request.method() + " " + request.url().encodedPath(), k -> new Endpoint());
+    }
+
+    // 0 - замеров мало, таймаут вызова не ограничивается (остаются таймауты OkHttpClient)
+    private long timeoutMillis(Endpoint endpoint) {
+        if (endpoint.latency.count() < MIN_SAMPLES) {
+            return 0;
+        }
+        long timeout = (long) (endpoint.latency.percentiles()[2] * TIMEOUT_FACTOR);
+        return Math.max(minTimeoutMs, Math.min(maxTimeoutMs, timeout));
+    }
+
+    private void applyTimeout(Call<?> call, Endpoint endpoint) {
+        long timeout = timeoutMillis(endpoint);
+        if (timeout > 0) {
+            call.timeout().timeout(timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static class Endpoint {
+        final NetworkMetrics.Reservoir latency = new NetworkMetrics.Reservoir();
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong hedges = new AtomicLong();
+        final AtomicLong hedgeWins = new AtomicLong();
+
+        // Задержка до копии в миллисекундах; -1 - копия не нужна или бюджет исчерпан
+        long hedgeDelayMillis() {
+            if (latency.count() < MIN_SAMPLES || hedges.get() + 1 > calls.get() * HEDGE_BUDGET) {
+                return -1;
+            }
+            return Math.max(MIN_HEDGE_DELAY_MS, (long) Math.ceil(latency.percentiles()[1]));
+        }
+    }
+
+    private final class HedgedCall<T> implements Call<T> {
+        private final Call<T> primary;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+        // Состояние ниже меняется под synchronized (this)
+        private Call<T> hedge;
+        private ScheduledFuture<?> hedgeTimer;
+        private int activeAttempts;
+        private boolean delivered;
+        private long start;
+
+        HedgedCall(Call<T> primary) {
+            this.primary = primary;
+        }
+
+        @Override
+        public void enqueue(Callback<T> callback) {
+            if (executed) {
+                throw new IllegalStateException("Already executed.");
+            }
+            executed = true;
+            start = System.nanoTime();
+            Endpoint endpoint = endpointFor(primary.request());
+            endpoint.calls.incrementAndGet();
+            long delay = endpoint.hedgeDelayMillis();
+            synchronized (this) {
+                activeAttempts = 1;
+                if (delay > 0) {
+                    hedgeTimer = timer.schedule(() -> startHedge(endpoint, callback), delay, TimeUnit.MILLISECONDS);
+                }
+            }
+            applyTimeout(primary, endpoint);
+            primary.enqueue(new Attempt(endpoint, callback, false));
+        }
+
+        private void startHedge(Endpoint endpoint, Callback<T> callback) {
+            Call<T> copy;
+            synchronized (this) {
+                if (delivered || canceled) {
+                    return;
+                }
+                endpoint.hedges.incrementAndGet();
+                copy = primary.clone();
+                hedge = copy;
+                activeAttempts++;
+            }
+            applyTimeout(copy, endpoint);
+            copy.enqueue(new Attempt(endpoint, callback, true));
+        }
+
+        // Первый ответ отдается вызывающему, вторая попытка отменяется
+        private final class Attempt implements Callback<T> {
+            private final Endpoint endpoint;
+            private final Callback<T> callback;
+            private final boolean isHedge;
+
+            Attempt(Endpoint endpoint, Callback<T> callback, boolean isHedge) {
+                this.endpoint = endpoint;
+                this.callback = callback;
+                this.isHedge = isHedge;
+            }
+
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                if (!finish(true)) {
+                    return;
+                }
+                if (isHedge) {
+                    endpoint.hedgeWins.incrementAndGet();
+                }
+                callback.onResponse(HedgedCall.this, response);
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                if (finish(false)) {
+                    callback.onFailure(HedgedCall.this, t);
+                }
+            }
+
+            // true - результат этой попытки нужно отдать вызывающему.
+            // Замеряется время всего вызова, как его видит пользователь; ошибки (в том числе таймауты)
+            // тоже попадают в замеры, чтобы после замедления сети таймаут вырос, а не срабатывал снова
+            private boolean finish(boolean success) {
+                Call<T> other;
+                synchronized (HedgedCall.this) {
+                    activeAttempts--;
+                    if (delivered || (!success && activeAttempts > 0 && !canceled)) {
+                        return false;
+                    }
+                    delivered = true;
+                    if (hedgeTimer != null) {
+                        hedgeTimer.cancel(false);
+                    }
+                    other = isHedge ? primary : hedge;
+                }
+                if (!canceled) {
+                    endpoint.latency.record(System.nanoTime() - start);
+                }
+                if (other != null) {
+                    other.cancel();
+                }
+                return true;
+            }
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            executed = true;
+            Endpoint endpoint = endpointFor(primary.request());
+            endpoint.calls.incrementAndGet();
+            applyTimeout(primary, endpoint);
+            long start = System.nanoTime();
+            Response<T> response = primary.execute();
+            endpoint.latency.record(System.nanoTime() - start);
+            return response;
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public void cancel() {
+            Call<T> copy;
+            synchronized (this) {
+                canceled = true;
+                if (hedgeTimer != null) {
+                    hedgeTimer.cancel(false);
+                }
+                copy = hedge;
+            }
+            primary.cancel();
+            if (copy != null) {
+                copy.cancel();
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new HedgedCall<>(primary.clone());
+        }
+
+        @Override
+        public Request request() {
+            return primary.request();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return primary.timeout();
+        }
+    }
+
+    public static class EndpointStats {
+        public final long calls;
+        // Сколько раз отправлялась копия и сколько раз она ответила первой
+        public final long hedges;
+        public final long hedgeWins;
+        public final double latencyP95Ms;
+        // Текущий таймаут вызова; 0 - не ограничен
+        public final long timeoutMs;
+
+        EndpointStats(long calls, long hedges, long hedgeWins, double latencyP95Ms, long timeoutMs) {
+            this.calls = calls;
+            this.hedges = hedges;
+            this.hedgeWins = hedgeWins;
+            this.latencyP95Ms = latencyP95Ms;
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "calls=%d hedges=%d wins=%d p95=%.1fms timeout=%dms",
+                    calls, hedges, hedgeWins, latencyP95Ms, timeoutMs);
+        }
+    }
+}
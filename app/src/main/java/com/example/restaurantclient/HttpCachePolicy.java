@@ -0,0 +1,115 @@
+package com.example.restaurantclient;
+
+import okhttp3.Cache;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+ // Политика HTTP-кэша для OkHttpClient:
+ // - если сервер не прислал Cache-Control, для известных GET-эндпоинтов подставляется
+ //   заголовок по умолчанию (no-cache - хранить, но каждый раз перепроверять через ETag / Last-Modified);
+ // - считает ответы 304 Not Modified и сколько байт тела благодаря им не пришлось скачивать
+
+public class HttpCachePolicy {
+    public static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024;
+
+    // Префикс пути (относительно BASE_URL) -> Cache-Control, если сервер его не задал
+    private final Map<String, String> defaults = new LinkedHashMap<>();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    public HttpCachePolicy() {
+        // Ответ на changes?since=N одноразовый - в кэше он только занимает место.
+        // Идет раньше "clients": выбирается первый подходящий префикс
+        defaults.put("clients/changes", "no-store");
+        defaults.put("clients", "no-cache");
+        defaults.put("auth/check", "no-cache");
+    }
+
+    public HttpCachePolicy setDefault(String pathPrefix, String cacheControl) {
+        defaults.put(pathPrefix, cacheControl);
+        return this;
+    }
+
+    // Сетевой интерцептор: правит заголовки ответа до того, как он попадет в кэш
+    public Interceptor networkInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            if (!"GET".equals(request.method()) || response.header("Cache-Control") != null) {
+                return response;
+            }
+
+            String cacheControl = defaultFor(request.url().encodedPath());
+            if (cacheControl == null) {
+                return response;
+            }
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .header("Cache-Control", cacheControl)
+                    .build();
+        };
+    }
+
+    // Обычный интерцептор: видит итоговый ответ и понимает, пришло ли тело из кэша после 304
+    public Interceptor statsInterceptor() {
+        return chain -> {
+            Response response = chain.proceed(chain.request());
+            Response networkResponse = response.networkResponse();
+            if (response.cacheResponse() != null && networkResponse != null && networkResponse.code() == 304) {
+                notModifiedCount.incrementAndGet();
+                long length = response.body() != null ? response.body().contentLength() : -1;
+                if (length > 0) {
+                    savedBytes.addAndGet(length);
+                }
+            }
+            return response;
+        };
+    }
+
+    public Stats snapshot(Cache cache) {
+        return new Stats(cache.requestCount(), cache.networkCount(), cache.hitCount(),
+                notModifiedCount.get(), savedBytes.get());
+    }
+
+    private String defaultFor(String encodedPath) {
+        for (Map.Entry<String, String> entry : defaults.entrySet()) {
+            if (encodedPath.contains("/" + entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    public static class Stats {
+        // Всего запросов через кэш
+        public final int requestCount;
+        // Сколько из них ушло в сеть (включая условные запросы, вернувшие 304)
+        public final int networkCount;
+        // Ответы, полностью обслуженные из кэша, плюс ответы 304
+        public final int hitCount;
+        public final long notModifiedCount;
+        public final long savedBytes;
+
+        Stats(int requestCount, int networkCount, int hitCount, long notModifiedCount, long savedBytes) {
+            this.requestCount = requestCount;
+            this.networkCount = networkCount;
+            this.hitCount = hitCount;
+            this.notModifiedCount = notModifiedCount;
+            this.savedBytes = savedBytes;
+        }
+
+        public int getMissCount() {
+            return requestCount - hitCount;
+        }
+
+        @Override
+        public String toString() {
+            return "requests=" + requestCount + ", network=" + networkCount + ", hits=" + hitCount
+                    + ", notModified=" + notModifiedCount + ", savedBytes=" + savedBytes;
+        }
+    }
+}
@@ -22,6 +22,8 @@ public class LoginActivity extends AppCompatActivity {
     private EditText etLogin, etPassword;
     private Button btnLogin, btnRegister, btnGuest;
     private ProgressBar progressBar;
+    // Запросы экрана отменяются в onDestroy - ответ не придет в закрытую Activity
+    private final CallTracker callTracker = new CallTracker();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -42,11 +44,17 @@ public class LoginActivity extends AppCompatActivity {
         checkExistingSession();
     }
 
+    @Override
+    protected void onDestroy() {
+        callTracker.cancelAll();
+        super.onDestroy();
+    }
+
     private void checkExistingSession() {
 
         AuthApi authApi = ApiClient.getAuthApi(this);
 
-        authApi.checkAuth().enqueue(new Callback<AuthResponse>() {
+        callTracker.enqueue(authApi.checkAuth(), new Callback<AuthResponse>() {
             @Override
             public void onResponse(Call<AuthResponse> call, Response<AuthResponse> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isAuthenticated()) {
@@ -76,7 +84,7 @@ public class LoginActivity extends AppCompatActivity {
 
         // ЗАПРОС АВТОРИЗАЦИИ к серверу
         AuthApi authApi = ApiClient.getAuthApi(this);
-        authApi.login(login, password).enqueue(new Callback<AuthResponse>() {
+        callTracker.enqueue(authApi.login(login, password), new Callback<AuthResponse>() {
             @Override
             public void onResponse(Call<AuthResponse> call, Response<AuthResponse> response) {
                 progressBar.setVisibility(View.GONE);
@@ -84,6 +92,8 @@ public class LoginActivity extends AppCompatActivity {
                 if (response.isSuccessful() && response.body() != null) {
                     AuthResponse authResponse = response.body();
                     if (authResponse.isSuccess()) {
+                        // Проверка и первая страница, запрошенные при старте, отправлены еще до входа
+                        StartupOrchestrator.discardPrefetched();
                         Toast.makeText(LoginActivity.this, "Успешный вход", Toast.LENGTH_SHORT).show();
                         startActivity(new Intent(LoginActivity.this, MainActivity.class));
                         finish();
@@ -131,7 +141,7 @@ public class LoginActivity extends AppCompatActivity {
 
     private void register(String login, String password, String fullName, String email) {
         AuthApi authApi = ApiClient.getAuthApi(this);
-        authApi.register(login, password, fullName, email).enqueue(new Callback<AuthResponse>() {
+        callTracker.enqueue(authApi.register(login, password, fullName, email), new Callback<AuthResponse>() {
             @Override
             public void onResponse(Call<AuthResponse> call, Response<AuthResponse> response) {
                 if (response.isSuccessful() && response.body() != null) {
@@ -1,37 +1,123 @@
 package com.example.restaurantclient;
 
+import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
+import android.view.MotionEvent;
 import android.view.View;
+import android.widget.Button;
 import android.widget.EditText;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.restaurantclient.adapter.ClientAdapter;
+import com.example.restaurantclient.adapter.ClientPagingSource;
+import com.example.restaurantclient.adapter.ClientSearchIndex;
+import com.example.restaurantclient.adapter.ClientSorter;
 import com.example.restaurantclient.api.AuthApi;
 import com.example.restaurantclient.api.ClientApi;
+import com.example.restaurantclient.api.ClientBatcher;
+import com.example.restaurantclient.api.ClientChangeStream;
+import com.example.restaurantclient.api.ClientCsv;
+import com.example.restaurantclient.api.ClientExporter;
+import com.example.restaurantclient.api.ClientImporter;
+import com.example.restaurantclient.api.ClientMutationSender;
+import com.example.restaurantclient.api.ClientRepository;
+import com.example.restaurantclient.api.ClientStore;
+import com.example.restaurantclient.api.ClientStreamLoader;
+import com.example.restaurantclient.api.DirectMutationSender;
+import com.example.restaurantclient.api.MutationOutbox;
 import com.example.restaurantclient.models.AuthResponse;
 import com.example.restaurantclient.models.Client;
+import com.example.restaurantclient.models.ClientChanges;
 import com.example.restaurantclient.models.User;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
+import okhttp3.HttpUrl;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.List;
 
 public class MainActivity extends AppCompatActivity {
+    // true - изменения клиентов, сделанные почти одновременно или накопившиеся в журнале без сети,
+    // уходят одним запросом clients/batch (сервер без него - по одному)
+    private static final boolean BATCH_MUTATIONS = true;
+    // Журнал неотправленных изменений живет дольше Activity, чтобы не читать его заново при повороте экрана
+    private static MutationOutbox mutationOutbox;
+    // Список клиентов живет столько же, сколько журнал: ответы на правки, отправленные до поворота экрана,
+    // применяются к нему, а не к списку уничтоженной Activity
+    private static ClientRepository clientRepository;
+    // Несколько запросов перезагрузки подряд (конфликты правок, восстановленные изменения)
+    // выполняются одной загрузкой после паузы
+    private static final long RELOAD_DEBOUNCE_MS = 300;
+    // Импорт файла живет дольше Activity, как и журнал изменений: при повороте экрана он не прерывается
+    private static ClientImporter clientImporter;
+    // Экспорт тоже: отмена при повороте экрана оставила бы недописанный файл
+    private static ClientExporter clientExporter;
+    // Сколько ошибок строк показывать в итогах импорта
+    private static final int SHOWN_IMPORT_ERRORS = 10;
+
+    // Запросы экрана отменяются в onDestroy
+    private final CallTracker callTracker = new CallTracker();
+    private final Runnable reloadClients = this::loadClients;
+
     private RecyclerView recyclerView;
+    private LinearLayoutManager layoutManager;
     private ClientAdapter adapter;
-    private List<Client> clientList = new ArrayList<>();
+    // Список грузится постранично (по id) при прокрутке; целиком, потоком - только
+    // перезагрузка уже полностью загруженного списка (см. loadAllClients)
+    private ClientPagingSource pagingSource;
+    private ClientStreamLoader streamLoader;
+    // Правки с других устройств, пока экран на виду (между onStart и onStop)
+    private ClientChangeStream changeStream;
+    private boolean started = false;
+    // Файлы для импорта и экспорта выбираются системным диалогом (Storage Access Framework)
+    private final ActivityResultLauncher<String[]> importFilePicker =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importClients);
+    private final ActivityResultLauncher<String> exportFilePicker =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument(ClientCsv.MIME_TYPE), this::exportClients);
+    private CharSequence screenTitle;
+    private final ClientRepository.Listener repositoryListener = new ClientRepository.Listener() {
+        @Override
+        public void onClientsChanged(List<Client> clients) {
+            // Индекс поиска и сортировка обрабатывают только изменившиеся строки
+            searchIndex.sync(clients);
+            clientSorter.sync(clients);
+            showClients();
+            // Версия списка стала известна (или список перезагружен) - подписка начинается с нее;
+            // началась перезагрузка (версия неизвестна) - подписка закрывается
+            startChangeStream();
+        }
+
+        @Override
+        public void onResyncRequired() {
+            requestReload();
+        }
+    };
+    private final ClientSearchIndex searchIndex = new ClientSearchIndex();
+    private final ClientSorter clientSorter = new ClientSorter();
+    private String searchQuery = "";
+    private EditText etSearch;
+    private Button btnSort;
+    private LinearLayout sectionIndex;
+    private Object[] shownSections = new Object[0];
     private FloatingActionButton fabAdd, fabLogout;
     private TextView tvUserInfo;
     private User currentUser;
@@ -53,7 +139,75 @@ public class MainActivity extends AppCompatActivity {
             loadUserInfo();
         }
 
-        loadClients();
+        // Сначала - последний сохраненный список, затем сверка с сервером в фоне
+        // (после чтения с диска известна версия, с которой можно запросить только изменения)
+        clientRepository.restoreFromStore(this::loadClients);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        started = true;
+        startChangeStream();
+    }
+
+    @Override
+    protected void onStop() {
+        // В фоне соединение не держится: при возврате подписка продолжится с последнего события
+        started = false;
+        changeStream.stop();
+        super.onStop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        callTracker.cancelAll();
+        pagingSource.cancel();
+        streamLoader.cancel();
+        // Журнал изменений, импорт и экспорт переживают Activity - отвязываем от них уничтоженный экран
+        mutationOutbox.setOnRecoveredResult(null);
+        clientRepository.setListener(null);
+        clientImporter.setListener(null);
+        clientExporter.setListener(null);
+        super.onDestroy();
+    }
+
+    private void requestReload() {
+        callTracker.debounce(reloadClients, RELOAD_DEBOUNCE_MS);
+    }
+
+    // Ответ на изменение приходит из журнала, который живет дольше экрана (ответа можно ждать минутами),
+    // поэтому колбэк держит только контекст приложения, а не Activity
+    private static class MutationToast implements ClientRepository.MutationCallback {
+        private final Context appContext;
+        private final String confirmedMessage;
+        private final int failedDuration;
+        // Тег, под которым ошибка пишется в лог; null - не писать
+        private final String logTag;
+
+        MutationToast(Context context, String confirmedMessage, int failedDuration) {
+            this(context, confirmedMessage, failedDuration, null);
+        }
+
+        MutationToast(Context context, String confirmedMessage, int failedDuration, String logTag) {
+            this.appContext = context.getApplicationContext();
+            this.confirmedMessage = confirmedMessage;
+            this.failedDuration = failedDuration;
+            this.logTag = logTag;
+        }
+
+        @Override
+        public void onConfirmed() {
+            Toast.makeText(appContext, confirmedMessage, Toast.LENGTH_SHORT).show();
+        }
+
+        @Override
+        public void onFailed(String message) {
+            Toast.makeText(appContext, message, failedDuration).show();
+            if (logTag != null) {
+                Log.e(logTag, message);
+            }
+        }
     }
 
     private void initViews() {
@@ -61,14 +215,46 @@ public class MainActivity extends AppCompatActivity {
         fabAdd = findViewById(R.id.fabAdd);
         fabLogout = findViewById(R.id.fabLogout);
         tvUserInfo = findViewById(R.id.tvUserInfo);
+        etSearch = findViewById(R.id.etSearch);
+        btnSort = findViewById(R.id.btnSort);
+        sectionIndex = findViewById(R.id.sectionIndex);
 
         fabAdd.setOnClickListener(v -> showAddClientDialog());
+        fabAdd.setOnLongClickListener(v -> {
+            showCsvDialog();
+            return true;
+        });
         fabLogout.setOnClickListener(v -> logout());
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchQuery = s.toString();
+                showClients();
+            }
+        });
+        btnSort.setOnClickListener(v -> switchSortMode());
+        // Касание или ведение пальцем по указателю прокручивает список к соответствующему разделу
+        sectionIndex.setOnTouchListener((v, event) -> {
+            int count = sectionIndex.getChildCount();
+            int action = event.getActionMasked();
+            if (count == 0 || (action != MotionEvent.ACTION_DOWN && action != MotionEvent.ACTION_MOVE)) {
+                return count > 0;
+            }
+            int section = (int) (event.getY() / v.getHeight() * count);
+            layoutManager.scrollToPositionWithOffset(adapter.getPositionForSection(section), 0);
+            return true;
+        });
     }
 
     private void setupRecyclerView() {
         if (isGuest) {
-            adapter = new ClientAdapter(clientList, new ClientAdapter.OnClientClickListener() {
+            adapter = new ClientAdapter(new ClientAdapter.OnClientClickListener() {
                 @Override
                 public void onEditClick(Client client) {
                     Toast.makeText(MainActivity.this, "Неавторизованные пользователи не могут редактировать", Toast.LENGTH_SHORT).show();
@@ -80,7 +266,7 @@ public class MainActivity extends AppCompatActivity {
                 }
             });
         } else {
-            adapter = new ClientAdapter(clientList, new ClientAdapter.OnClientClickListener() {
+            adapter = new ClientAdapter(new ClientAdapter.OnClientClickListener() {
                 @Override
                 public void onEditClick(Client client) {
                     showEditClientDialog(client);
@@ -93,8 +279,96 @@ public class MainActivity extends AppCompatActivity {
             });
         }
 
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
+        adapter.setSectionProvider(clientSorter);
+
+        if (mutationOutbox == null) {
+            ClientMutationSender delivery = BATCH_MUTATIONS
+                    ? new ClientBatcher(ApiClient.getClientApi(this))
+                    : new DirectMutationSender(ApiClient.getClientApi(this));
+            // Изменения сначала пишутся в журнал на диске и доставляются с повторами,
+            // поэтому при плохой сети строка просто остается в состоянии pending
+            mutationOutbox = new MutationOutbox(this, delivery, ApiClient.getGson());
+        }
+        mutationOutbox.setOnRecoveredResult(this::requestReload);
+        if (clientRepository == null) {
+            clientRepository = new ClientRepository(mutationOutbox, ClientStore.getInstance(this, ApiClient.getGson()));
+        }
+        clientRepository.setListener(repositoryListener);
+
+        pagingSource = new ClientPagingSource(ApiClient.getClientApi(this), new ClientPagingSource.PageListener() {
+            @Override
+            public void onPageLoaded(List<Client> page, boolean first, boolean last) {
+                clientRepository.applyPage(page, first, last, pagingSource.getSyncVersion());
+            }
+
+            @Override
+            public void onPageError(String message) {
+                Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
+            }
+        });
+        streamLoader = new ClientStreamLoader(ApiClient.getClientApi(this), ApiClient.getGson());
+        changeStream = new ClientChangeStream(ApiClient.getOkHttpClient(), HttpUrl.get(ApiClient.getBaseUrl()), ApiClient.getGson());
+        if (clientImporter == null) {
+            clientImporter = new ClientImporter(ApiClient.getClientApi(this));
+        }
+        if (clientExporter == null) {
+            clientExporter = new ClientExporter(ApiClient.getClientApi(this), ApiClient.getGson());
+        }
+        // Импорт и экспорт, начатые до поворота экрана, сообщают о ходе и итогах уже здесь
+        screenTitle = getTitle();
+        clientImporter.setListener(importListener);
+        clientExporter.setListener(exportListener);
+
+        recyclerView.addOnScrollListener(pagingSource.createScrollListener());
+    }
+
+    // Адаптер получает отсортированный снимок списка (или представление совпавших строк поверх него):
+    // разница со старым считается в фоне
+    private void showClients() {
+        adapter.submitList(searchIndex.filter(clientSorter.getSortedList(), searchQuery), this::updateSectionIndex);
+    }
+
+    private void switchSortMode() {
+        ClientSorter.Mode[] modes = ClientSorter.Mode.values();
+        ClientSorter.Mode mode = modes[(clientSorter.getMode().ordinal() + 1) % modes.length];
+        clientSorter.setMode(mode);
+        switch (mode) {
+            case ID:
+                btnSort.setText("По номеру");
+                break;
+            case RECENT:
+                btnSort.setText("Недавние");
+                break;
+            default:
+                btnSort.setText("По имени");
+                break;
+        }
+        // Заголовки разделов зависят от порядка, поэтому перепривязываются после применения списка
+        adapter.submitList(searchIndex.filter(clientSorter.getSortedList(), searchQuery), () -> {
+            adapter.refreshSections();
+            updateSectionIndex();
+            layoutManager.scrollToPositionWithOffset(0, 0);
+        });
+    }
+
+    // Алфавитный указатель перестраивается, только если изменился набор разделов
+    private void updateSectionIndex() {
+        Object[] sections = adapter.getSections();
+        if (Arrays.equals(sections, shownSections)) {
+            return;
+        }
+        shownSections = sections;
+        sectionIndex.removeAllViews();
+        for (Object section : sections) {
+            TextView letter = new TextView(this);
+            letter.setText(section.toString());
+            letter.setTextSize(11);
+            sectionIndex.addView(letter);
+        }
+        sectionIndex.setVisibility(sections.length > 1 ? View.VISIBLE : View.GONE);
     }
 
     private void setupGuestMode() {
@@ -103,8 +377,13 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void loadUserInfo() {
-        AuthApi authApi = ApiClient.getAuthApi(this);
-        authApi.checkAuth().enqueue(new Callback<AuthResponse>() {
+        // Проверка авторизации обычно уже запущена при старте процесса (StartupOrchestrator)
+        Call<AuthResponse> authCheck = StartupOrchestrator.takeAuthCheck();
+        if (authCheck == null) {
+            AuthApi authApi = ApiClient.getAuthApi(this);
+            authCheck = authApi.checkAuth();
+        }
+        callTracker.enqueue(authCheck, new Callback<AuthResponse>() {
             @Override
             public void onResponse(Call<AuthResponse> call, Response<AuthResponse> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isAuthenticated()) {
@@ -129,26 +408,95 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void loadClients() {
-        ClientApi clientApi = ApiClient.getClientApi(this);
-        clientApi.getAllClients().enqueue(new Callback<List<Client>>() {
+        if (callTracker.isCancelled()) {
+            return;
+        }
+        Call<List<Client>> prefetchedPage = StartupOrchestrator.takeFirstClientsPage();
+        long syncVersion = clientRepository.getSyncVersion();
+        if (syncVersion == ClientRepository.NO_SYNC_VERSION || !clientRepository.isComplete()) {
+            // Загружена только часть таблицы - заново с первой страницы, остальное при прокрутке
+            loadAllClients(prefetchedPage);
+            return;
+        }
+
+        // Список уже был полностью загружен - запрашиваем только изменения с его версии
+        Call<ClientChanges> changesCall = ApiClient.getClientApi(this).getClientChanges(syncVersion, ClientApi.LIST_FIELDS);
+        callTracker.enqueue(changesCall, new Callback<ClientChanges>() {
             @Override
-            public void onResponse(Call<List<Client>> call, Response<List<Client>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    clientList.clear();
-                    clientList.addAll(response.body());
-                    adapter.notifyDataSetChanged();
-                } else {
-                    Toast.makeText(MainActivity.this, "Ошибка загрузки клиентов", Toast.LENGTH_SHORT).show();
+            public void onResponse(Call<ClientChanges> call, Response<ClientChanges> response) {
+                if (response.isSuccessful() && response.body() != null
+                        && clientRepository.applyChanges(response.body())) {
+                    if (prefetchedPage != null) {
+                        prefetchedPage.cancel();
+                    }
+                    pagingSource.markComplete();
+                    return;
                 }
+                // 410 / reset / сервер без clients/changes - полная загрузка
+                loadAllClients(prefetchedPage);
             }
 
             @Override
-            public void onFailure(Call<List<Client>> call, Throwable t) {
+            public void onFailure(Call<ClientChanges> call, Throwable t) {
+                if (prefetchedPage != null) {
+                    prefetchedPage.cancel();
+                }
                 Toast.makeText(MainActivity.this, "Ошибка сети: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
     }
 
+    private void startChangeStream() {
+        if (started) {
+            changeStream.start(clientRepository.getSyncVersion(), changeListener);
+        }
+    }
+
+    // Push-события применяются к списку так же, как ответ clients/changes
+    private final ClientChangeStream.Listener changeListener = new ClientChangeStream.Listener() {
+        @Override
+        public void onChanges(ClientChanges changes) {
+            if (!clientRepository.applyChanges(changes)) {
+                // Версия списка больше неизвестна - до конца перезагрузки события не нужны
+                changeStream.stop();
+                requestReload();
+            }
+        }
+
+        @Override
+        public void onResyncRequired() {
+            // Сверка с версии списка: сервер сам решит, хватит ли clients/changes или нужна полная загрузка
+            requestReload();
+        }
+    };
+
+    private void loadAllClients(Call<List<Client>> prefetchedPage) {
+        if (clientRepository.isComplete()) {
+            // В памяти уже вся таблица (сервер ответил reset или версия потеряна): постраничная сверка
+            // удалила бы лишние строки только после прокрутки до конца. Список читается одним потоком
+            // в фоне и сверяется порциями так же, как страницы, - и снова становится полным
+            if (prefetchedPage != null) {
+                prefetchedPage.cancel();
+            }
+            pagingSource.markComplete();
+            streamLoader.load(new ClientStreamLoader.ChunkListener() {
+                @Override
+                public void onChunk(List<Client> chunk, boolean first, boolean last) {
+                    clientRepository.applyPage(chunk, first, last, streamLoader.getSyncVersion());
+                }
+
+                @Override
+                public void onError(String message) {
+                    Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
+                }
+            });
+            return;
+        }
+        // Первая страница грузится сразу (или уже загружена при старте), остальные - при прокрутке
+        streamLoader.cancel();
+        pagingSource.refresh(prefetchedPage);
+    }
+
     private void showAddClientDialog() {
         if (isGuest) {
             Toast.makeText(this, "Неавторизованные пользователи не могут добавлять клиентов", Toast.LENGTH_SHORT).show();
@@ -183,23 +531,8 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        ClientApi clientApi = ApiClient.getClientApi(this);
-        clientApi.createClient(fullName, contacts).enqueue(new Callback<Void>() {
-            @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
-                if (response.isSuccessful()) {
-                    Toast.makeText(MainActivity.this, "Клиент добавлен", Toast.LENGTH_SHORT).show();
-                    loadClients();
-                } else {
-                    Toast.makeText(MainActivity.this, "Ошибка добавления", Toast.LENGTH_SHORT).show();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<Void> call, Throwable t) {
-                Toast.makeText(MainActivity.this, "Ошибка сети", Toast.LENGTH_SHORT).show();
-            }
-        });
+        // Строка появляется в списке сразу, ответ сервера ее подтвердит или уберет
+        clientRepository.createClient(fullName, contacts, new MutationToast(this, "Клиент добавлен", Toast.LENGTH_SHORT));
     }
 
     private void showEditClientDialog(Client client) {
@@ -242,33 +575,7 @@ public class MainActivity extends AppCompatActivity {
 
         Log.d("UPDATE_CLIENT", "Sending UPDATE - ID: " + id + ", Name: " + fullName + ", Contacts: " + contacts);
 
-        ClientApi clientApi = ApiClient.getClientApi(this);
-        clientApi.updateClient(id, fullName, contacts).enqueue(new Callback<Void>() {
-            @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
-                if (response.isSuccessful()) {
-                    Toast.makeText(MainActivity.this, "Клиент успешно обновлен!", Toast.LENGTH_SHORT).show();
-                    loadClients();
-                } else {
-                    String errorMessage = "Ошибка обновления: " + response.code();
-                    try {
-                        if (response.errorBody() != null) {
-                            errorMessage += " - " + response.errorBody().string();
-                        }
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                    Toast.makeText(MainActivity.this, errorMessage, Toast.LENGTH_LONG).show();
-                    Log.e("UPDATE_CLIENT", errorMessage);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<Void> call, Throwable t) {
-                Toast.makeText(MainActivity.this, "Ошибка сети: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-                Log.e("UPDATE_CLIENT", "Network error: " + t.getMessage());
-            }
-        });
+        clientRepository.updateClient(id, fullName, contacts, new MutationToast(this, "Клиент успешно обновлен!", Toast.LENGTH_LONG, "UPDATE_CLIENT"));
     }
 
     private void deleteClient(Client client) {
@@ -281,28 +588,114 @@ public class MainActivity extends AppCompatActivity {
                 .setTitle("Удаление клиента")
                 .setMessage("Вы уверены, что хотите удалить клиента " + client.getFullName() + "?")
                 .setPositiveButton("Удалить", (dialog, which) -> {
-                    ClientApi clientApi = ApiClient.getClientApi(this);
-                    clientApi.deleteClient(client.getId()).enqueue(new Callback<Void>() {
-                        @Override
-                        public void onResponse(Call<Void> call, Response<Void> response) {
-                            if (response.isSuccessful()) {
-                                Toast.makeText(MainActivity.this, "Клиент удален", Toast.LENGTH_SHORT).show();
-                                loadClients();
-                            } else {
-                                Toast.makeText(MainActivity.this, "Ошибка удаления", Toast.LENGTH_SHORT).show();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<Void> call, Throwable t) {
-                            Toast.makeText(MainActivity.this, "Ошибка сети", Toast.LENGTH_SHORT).show();
-                        }
-                    });
+                    clientRepository.deleteClient(client.getId(), new MutationToast(this, "Клиент удален", Toast.LENGTH_SHORT));
+                })
+                .setNegativeButton("Отмена", null)
+                .show();
+    }
+
+    // Долгое нажатие на кнопку добавления - загрузка и выгрузка списка клиентов файлом CSV
+    private void showCsvDialog() {
+        if (isGuest) {
+            return;
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Клиенты в CSV")
+                .setItems(new String[]{"Импорт из CSV", "Экспорт в CSV"}, (dialog, which) -> {
+                    if (which == 1 && clientExporter.isRunning()) {
+                        Toast.makeText(this, "Экспорт уже выполняется", Toast.LENGTH_SHORT).show();
+                    } else if (which == 1) {
+                        exportFilePicker.launch("clients.csv");
+                    } else if (clientImporter.isRunning()) {
+                        Toast.makeText(this, "Импорт уже выполняется", Toast.LENGTH_SHORT).show();
+                    } else {
+                        importFilePicker.launch(new String[]{ClientCsv.MIME_TYPE, "text/comma-separated-values", "text/plain"});
+                    }
                 })
                 .setNegativeButton("Отмена", null)
                 .show();
     }
 
+    private void importClients(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        InputStream in;
+        try {
+            in = getContentResolver().openInputStream(uri);
+        } catch (IOException e) {
+            in = null;
+        }
+        if (in == null) {
+            Toast.makeText(this, "Не удалось открыть файл", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        setTitle("Импорт клиентов...");
+        clientImporter.importFrom(in, importListener);
+    }
+
+    private final ClientImporter.Listener importListener = new ClientImporter.Listener() {
+        @Override
+        public void onProgress(int rowsRead, int imported, int failed) {
+            setTitle(String.format("Импорт: %d из %d", imported, rowsRead));
+        }
+
+        @Override
+        public void onFinished(ClientImporter.Result result) {
+            setTitle(screenTitle);
+            StringBuilder message = new StringBuilder()
+                    .append("Добавлено клиентов: ").append(result.imported)
+                    .append("\nСтрок с ошибками: ").append(result.failed);
+            if (result.abortMessage != null) {
+                message.append("\n\nИмпорт остановлен. ").append(result.abortMessage);
+            }
+            for (int i = 0; i < Math.min(SHOWN_IMPORT_ERRORS, result.errors.size()); i++) {
+                message.append(i == 0 ? "\n\n" : "\n").append(result.errors.get(i));
+            }
+            if (result.failed > SHOWN_IMPORT_ERRORS) {
+                message.append("\n...");
+            }
+            new AlertDialog.Builder(MainActivity.this)
+                    .setTitle("Импорт завершен")
+                    .setMessage(message)
+                    .setPositiveButton("OK", null)
+                    .show();
+            // Новые клиенты придут обычной сверкой (clients/changes)
+            if (result.imported > 0) {
+                requestReload();
+            }
+        }
+    };
+
+    private void exportClients(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        OutputStream out;
+        try {
+            out = getContentResolver().openOutputStream(uri);
+        } catch (IOException e) {
+            out = null;
+        }
+        if (out == null) {
+            Toast.makeText(this, "Не удалось создать файл", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        clientExporter.exportTo(out, exportListener);
+    }
+
+    private final ClientExporter.Listener exportListener = new ClientExporter.Listener() {
+        @Override
+        public void onFinished(int exported) {
+            Toast.makeText(MainActivity.this, "Выгружено клиентов: " + exported, Toast.LENGTH_SHORT).show();
+        }
+
+        @Override
+        public void onError(String message) {
+            Toast.makeText(MainActivity.this, message, Toast.LENGTH_SHORT).show();
+        }
+    };
+
     private void logout() {
         if (isGuest) {
             startActivity(new Intent(MainActivity.this, LoginActivity.class));
@@ -311,10 +704,20 @@ public class MainActivity extends AppCompatActivity {
         }
 
         AuthApi authApi = ApiClient.getAuthApi(this);
-        authApi.logout().enqueue(new Callback<AuthResponse>() {
+        callTracker.enqueue(authApi.logout(), new Callback<AuthResponse>() {
             @Override
             public void onResponse(Call<AuthResponse> call, Response<AuthResponse> response) {
+                // Сессия сбрасывается и в памяти, и в SharedPreferences
+                ApiClient.clearSession(MainActivity.this);
+                StartupOrchestrator.discardPrefetched();
                 getSharedPreferences("session", MODE_PRIVATE).edit().clear().apply();
+                clientRepository.clearLocalData();
+                // Неотправленные правки этого пользователя не должны уйти с сессией следующего
+                mutationOutbox.clear();
+                // Импорт и экспорт идут с сессией прежнего пользователя: после выхода сервер все равно
+                // отклонит запросы, а файл экспорта остается обрезанным, как и при ошибке сети
+                clientImporter.cancel();
+                clientExporter.cancel();
                 startActivity(new Intent(MainActivity.this, LoginActivity.class));
                 finish();
             }
@@ -0,0 +1,358 @@
+package com.example.restaurantclient;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+ // Метрики сетевых запросов по эндпоинтам ("GET clients", "POST auth/login", ...):
+ // задержка (p50/p95/p99), байты в обе стороны, время разбора JSON, ошибки и повторы.
+ // interceptor() - обычный интерцептор OkHttp, networkInterceptor() считает повторные попытки
+ // внутри одного вызова и байты в сети (после сжатия), converterFactory() замеряет разбор ответа в Retrofit.
+ // snapshot() возвращает неизменяемый срез, который можно выгрузить или проверить в тесте
+
+public class NetworkMetrics {
+    // Для перцентилей хранится столько последних замеров на эндпоинт
+    private static final int RESERVOIR_SIZE = 1024;
+
+    private final String basePath;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    // Число сетевых попыток для каждого выполняющегося вызова
+    private final Map<Call, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    // Эндпоинт, тело которого сейчас разбирается в этом потоке (см. converterFactory)
+    private final ThreadLocal<Endpoint> parsing = new ThreadLocal<>();
+
+    // basePath - общий префикс пути (например, "/lab6_4kurs/"), который отбрасывается в названиях эндпоинтов
+    public NetworkMetrics(String basePath) {
+        this.basePath = basePath;
+    }
+
+    public Interceptor interceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Endpoint endpoint = endpointFor(request);
+            long bytesOut = request.body() != null ? request.body().contentLength() : 0;
+            if (bytesOut > 0) {
+                endpoint.bytesOut.addAndGet(bytesOut);
+            }
+
+            endpoint.calls.incrementAndGet();
+            AtomicInteger callAttempts = new AtomicInteger();
+            attempts.put(chain.call(), callAttempts);
+            // Задержка - до получения заголовков ответа; чтение тела учитывается во времени разбора
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                endpoint.errors.incrementAndGet();
+                endpoint.latency.record(System.nanoTime() - start);
+                throw e;
+            } finally {
+                attempts.remove(chain.call());
+                if (callAttempts.get() > 1) {
+                    endpoint.retries.addAndGet(callAttempts.get() - 1);
+                }
+            }
+
+            endpoint.latency.record(System.nanoTime() - start);
+            if (!response.isSuccessful() && response.code() != 304) {
+                endpoint.errors.incrementAndGet();
+            }
+            if (response.body() == null) {
+                return response;
+            }
+            // Байты ответа считаются по мере чтения, поэтому потоковые ответы не буферизуются.
+            // Тело из HTTP-кэша (в том числе после 304) по сети не шло - отдельно от пришедших из сети
+            boolean fromNetwork = response.networkResponse() != null && response.cacheResponse() == null;
+            return response.newBuilder()
+                    .body(new MeteredResponseBody(response.body(), endpoint.bytesIn,
+                            fromNetwork ? endpoint.networkBytesIn : null, endpoint))
+                    .build();
+        };
+    }
+
+    // Сетевой интерцептор: каждая попытка (включая повторы OkHttp после обрыва соединения)
+    // и байты в том виде, в каком они идут по сети - сжатое тело запроса, ответ до распаковки gzip
+    public Interceptor networkInterceptor() {
+        return chain -> {
+            AtomicInteger callAttempts = attempts.get(chain.call());
+            if (callAttempts != null) {
+                callAttempts.incrementAndGet();
+            }
+            Request request = chain.request();
+            Endpoint endpoint = endpointFor(request);
+            long wireOut = request.body() != null ? request.body().contentLength() : 0;
+            if (wireOut > 0) {
+                endpoint.wireBytesOut.addAndGet(wireOut);
+            }
+            Response response = chain.proceed(request);
+            if (response.body() == null) {
+                return response;
+            }
+            return response.newBuilder()
+                    .body(new MeteredResponseBody(response.body(), endpoint.wireBytesIn, null, null))
+                    .build();
+        };
+    }
+
+    // Оборачивает следующий конвертер и замеряет время разбора тела ответа
+    public Converter.Factory converterFactory() {
+        return new Converter.Factory() {
+            @Override
+            public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+                final Converter<ResponseBody, ?> delegate = retrofit.nextResponseBodyConverter(this, type, annotations);
+                // Retrofit открывает source() тела еще до вызова конвертера, поэтому
+                // эндпоинт берется из ThreadLocal после разбора и сразу сбрасывается
+                return (Converter<ResponseBody, Object>) body -> {
+                    long start = System.nanoTime();
+                    try {
+                        return delegate.convert(body);
+                    } finally {
+                        Endpoint endpoint = parsing.get();
+                        if (endpoint != null) {
+                            endpoint.parse.record(System.nanoTime() - start);
+                            parsing.remove();
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    public Snapshot snapshot() {
+        Map<String, EndpointSnapshot> result = new TreeMap<>();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return new Snapshot(result);
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private Endpoint endpointFor(Request request) {
+        String path = request.url().encodedPath();
+        if (path.startsWith(basePath)) {
+            path = path.substring(basePath.length());
+        }
+        return endpoint(request.method() + " " + path);
+    }
+
+    private Endpoint endpoint(String key) {
+        return endpoints.computeIfAbsent(key, k -> new Endpoint());
+    }
+
+    private static class Endpoint {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final AtomicLong bytesIn = new AtomicLong();
+        final AtomicLong networkBytesIn = new AtomicLong();
+        final AtomicLong bytesOut = new AtomicLong();
+        final AtomicLong wireBytesIn = new AtomicLong();
+        final AtomicLong wireBytesOut = new AtomicLong();
+        final Reservoir latency = new Reservoir();
+        final Reservoir parse = new Reservoir();
+
+        EndpointSnapshot snapshot() {
+            return new EndpointSnapshot(calls.get(), errors.get(), retries.get(), bytesIn.get(), networkBytesIn.get(), bytesOut.get(),
+                    wireBytesIn.get(), wireBytesOut.get(), latency.percentiles(), parse.percentiles(), parse.totalMillis());
+        }
+    }
+
+    // Кольцевой буфер последних замеров (в наносекундах); используется и в RequestScheduler
+    static class Reservoir {
+        private final long[] samples = new long[RESERVOIR_SIZE];
+        private long count = 0;
+        private long totalNanos = 0;
+
+        synchronized void record(long nanos) {
+            samples[(int) (count % RESERVOIR_SIZE)] = nanos;
+            count++;
+            totalNanos += nanos;
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized double totalMillis() {
+            return totalNanos / 1_000_000.0;
+        }
+
+        // {p50, p95, p99} в миллисекундах
+        double[] percentiles() {
+            long[] copy;
+            synchronized (this) {
+                copy = Arrays.copyOf(samples, (int) Math.min(count, RESERVOIR_SIZE));
+            }
+            if (copy.length == 0) {
+                return new double[]{0, 0, 0};
+            }
+            Arrays.sort(copy);
+            return new double[]{at(copy, 0.50), at(copy, 0.95), at(copy, 0.99)};
+        }
+
+        private static double at(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    // Считает прочитанные байты тела в counter и (если задан) networkCounter;
+    // parseEndpoint (если задан) - эндпоинт для замера разбора
+    private final class MeteredResponseBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final AtomicLong counter;
+        private final AtomicLong networkCounter;
+        private final Endpoint parseEndpoint;
+        private BufferedSource source;
+
+        MeteredResponseBody(ResponseBody delegate, AtomicLong counter, AtomicLong networkCounter, Endpoint parseEndpoint) {
+            this.delegate = delegate;
+            this.counter = counter;
+            this.networkCounter = networkCounter;
+            this.parseEndpoint = parseEndpoint;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (parseEndpoint != null) {
+                parsing.set(parseEndpoint);
+            }
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long read = super.read(sink, byteCount);
+                        if (read > 0) {
+                            counter.addAndGet(read);
+                            if (networkCounter != null) {
+                                networkCounter.addAndGet(read);
+                            }
+                        }
+                        return read;
+                    }
+                });
+            }
+            return source;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    public static class EndpointSnapshot {
+        public final long calls;
+        public final long errors;
+        public final long retries;
+        // Тело ответов после распаковки, включая ответы из HTTP-кэша
+        public final long bytesIn;
+        // То же, но только ответы, пришедшие из сети (без кэша и 304)
+        public final long networkBytesIn;
+        public final long bytesOut;
+        // Байты в сети: тело ответа до распаковки, тело запроса после сжатия.
+        // Ответы из HTTP-кэша сюда не попадают
+        public final long wireBytesIn;
+        public final long wireBytesOut;
+        public final double latencyP50Ms;
+        public final double latencyP95Ms;
+        public final double latencyP99Ms;
+        public final double parseP50Ms;
+        public final double parseP95Ms;
+        public final double parseP99Ms;
+        public final double parseTotalMs;
+
+        EndpointSnapshot(long calls, long errors, long retries, long bytesIn, long networkBytesIn, long bytesOut,
+                         long wireBytesIn, long wireBytesOut, double[] latency, double[] parse, double parseTotalMs) {
+            this.calls = calls;
+            this.errors = errors;
+            this.retries = retries;
+            this.bytesIn = bytesIn;
+            this.networkBytesIn = networkBytesIn;
+            this.bytesOut = bytesOut;
+            this.wireBytesIn = wireBytesIn;
+            this.wireBytesOut = wireBytesOut;
+            this.latencyP50Ms = latency[0];
+            this.latencyP95Ms = latency[1];
+            this.latencyP99Ms = latency[2];
+            this.parseP50Ms = parse[0];
+            this.parseP95Ms = parse[1];
+            this.parseP99Ms = parse[2];
+            this.parseTotalMs = parseTotalMs;
+        }
+
+        // Во сколько раз тело ответа больше переданного по сети (2.0 - сжатие вдвое);
+        // считается только по ответам из сети. 1, если таких ответов не было
+        public double compressionRatioIn() {
+            return wireBytesIn > 0 ? (double) networkBytesIn / wireBytesIn : 1;
+        }
+
+        public double compressionRatioOut() {
+            return wireBytesOut > 0 ? (double) bytesOut / wireBytesOut : 1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.US,
+                    "calls=%d errors=%d retries=%d in=%dB (wire %dB, x%.2f) out=%dB (wire %dB, x%.2f) "
+                            + "latency p50/p95/p99=%.1f/%.1f/%.1fms parse p50/p95/p99=%.2f/%.2f/%.2fms",
+                    calls, errors, retries, bytesIn, wireBytesIn, compressionRatioIn(),
+                    bytesOut, wireBytesOut, compressionRatioOut(), latencyP50Ms, latencyP95Ms, latencyP99Ms,
+                    parseP50Ms, parseP95Ms, parseP99Ms);
+        }
+    }
+
+    public static class Snapshot {
+        // Ключ - "МЕТОД путь", например "GET clients"
+        public final Map<String, EndpointSnapshot> endpoints;
+
+        Snapshot(Map<String, EndpointSnapshot> endpoints) {
+            this.endpoints = endpoints;
+        }
+
+        public EndpointSnapshot get(String endpointKey) {
+            return endpoints.get(endpointKey);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (Map.Entry<String, EndpointSnapshot> entry : endpoints.entrySet()) {
+                builder.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+}
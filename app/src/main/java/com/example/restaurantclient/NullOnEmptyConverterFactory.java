@@ -0,0 +1,25 @@
+package com.example.restaurantclient;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+ // Пустое тело ответа превращается в null вместо ошибки разбора JSON.
+ // Нужен для запросов, где сервер может вернуть объект, а может и ничего (например, createClient)
+
+public class NullOnEmptyConverterFactory extends Converter.Factory {
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        final Converter<ResponseBody, ?> delegate = retrofit.nextResponseBodyConverter(this, type, annotations);
+        return (Converter<ResponseBody, Object>) body -> {
+            if (body.contentLength() == 0 || body.source().exhausted()) {
+                body.close();
+                return null;
+            }
+            return delegate.convert(body);
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.restaurantclient;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+ // Запрос, запущенный заранее (при старте процесса), который потом можно отдать экрану как обычный Call:
+ // enqueue() сразу вернет готовый ответ или дождется того, что еще в полете.
+ // Ответ получает только один потребитель; отмененный вызов, как и обычный Call,
+ // получает onFailure с IOException("Canceled")
+
+public class PrefetchedCall<T> implements Call<T> {
+    private final Call<T> delegate;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private Response<T> response;
+    private Throwable failure;
+    private long completedAt;
+    private Callback<T> callback;
+    private volatile boolean executed;
+    private volatile boolean canceled;
+
+    public PrefetchedCall(Call<T> delegate) {
+        this.delegate = delegate;
+        delegate.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> result) {
+                complete(result, null);
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                complete(null, t);
+            }
+        });
+    }
+
+    // Ответ еще не пришел или пришел не раньше maxAgeMs назад
+    public synchronized boolean isFresh(long maxAgeMs) {
+        return completedAt == 0 || SystemClock.elapsedRealtime() - completedAt <= maxAgeMs;
+    }
+
+    private void complete(Response<T> result, Throwable t) {
+        Callback<T> target;
+        synchronized (this) {
+            response = result;
+            failure = t;
+            completedAt = SystemClock.elapsedRealtime();
+            target = callback;
+        }
+        done.countDown();
+        if (target != null) {
+            deliver(target);
+        }
+    }
+
+    private void deliver(Callback<T> target) {
+        mainHandler.post(() -> {
+            if (canceled) {
+                target.onFailure(this, new IOException("Canceled"));
+            } else if (response != null) {
+                target.onResponse(this, response);
+            } else {
+                target.onFailure(this, failure);
+            }
+        });
+    }
+
+    @Override
+    public void enqueue(Callback<T> callback) {
+        boolean ready;
+        synchronized (this) {
+            if (executed) {
+                throw new IllegalStateException("Already executed.");
+            }
+            executed = true;
+            this.callback = callback;
+            ready = completedAt != 0;
+        }
+        if (ready) {
+            deliver(callback);
+        }
+    }
+
+    @Override
+    public Response<T> execute() throws IOException {
+        synchronized (this) {
+            if (executed) {
+                throw new IllegalStateException("Already executed.");
+            }
+            executed = true;
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        if (response != null) {
+            return response;
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        throw new IOException(failure);
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return executed;
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+        delegate.cancel();
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    // Повтор - это уже новый сетевой запрос
+    @Override
+    public Call<T> clone() {
+        return delegate.clone();
+    }
+
+    @Override
+    public Request request() {
+        return delegate.request();
+    }
+
+    @Override
+    public Timeout timeout() {
+        return delegate.timeout();
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.restaurantclient;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+ // Очередь запросов с приоритетами вместо общей FIFO-очереди Dispatcher OkHttp:
+ // - INTERACTIVE - изменения, которых ждет пользователь (POST / PUT / DELETE);
+ // - FOREGROUND - чтение для экрана (GET / HEAD);
+ // - BACKGROUND - фоновая синхронизация и предзагрузка (заголовок X-Priority: background).
+ // У каждого класса свой предел одновременных запросов, а младшим классам недоступны
+ // последние слоты общего предела: сохранение правки не ждет, пока закончится большая загрузка.
+ // Когда слот освобождается, первыми запускаются ожидающие запросы старшего класса.
+ // Слот занят до получения заголовков ответа; время ожидания слота видно в snapshot()
+
+public class RequestScheduler {
+    public static final String HEADER = "X-Priority";
+    public static final int DEFAULT_TOTAL_LIMIT = 6;
+    // Как часто ожидающий запрос проверяет, не отменили ли его
+    private static final long CANCEL_CHECK_MS = 100;
+
+    public enum Lane {
+        INTERACTIVE, FOREGROUND, BACKGROUND;
+
+        // Значение заголовка X-Priority
+        public String headerValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final int totalLimit;
+    private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+    private int totalRunning = 0;
+
+    public RequestScheduler() {
+        this(DEFAULT_TOTAL_LIMIT);
+    }
+
+    // totalLimit - не меньше 3: по одному слоту всегда остается для INTERACTIVE и FOREGROUND
+    public RequestScheduler(int totalLimit) {
+        if (totalLimit < 3) {
+            throw new IllegalArgumentException("totalLimit < 3");
+        }
+        this.totalLimit = totalLimit;
+        lanes.put(Lane.INTERACTIVE, new LaneState(totalLimit, 0));
+        lanes.put(Lane.FOREGROUND, new LaneState(totalLimit - 1, 1));
+        lanes.put(Lane.BACKGROUND, new LaneState(Math.max(1, totalLimit / 3), 2));
+    }
+
+    // Ставится последним обычным интерцептором: ожидание слота идет в потоке Dispatcher
+    // (или в потоке execute()), а у Dispatcher предел на хост поднят, чтобы очередь была одна - здесь
+    public Interceptor interceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Lane lane = laneOf(request);
+            if (request.header(HEADER) != null) {
+                request = request.newBuilder().removeHeader(HEADER).build();
+            }
+            acquire(lane, chain.call());
+            try {
+                return chain.proceed(request);
+            } finally {
+                release(lane);
+            }
+        };
+    }
+
+    public static Lane laneOf(Request request) {
+        String priority = request.header(HEADER);
+        if (priority != null) {
+            for (Lane lane : Lane.values()) {
+                if (lane.headerValue().equalsIgnoreCase(priority)) {
+                    return lane;
+                }
+            }
+        }
+        String method = request.method();
+        return "GET".equals(method) || "HEAD".equals(method) ? Lane.FOREGROUND : Lane.INTERACTIVE;
+    }
+
+    private void acquire(Lane lane, Call call) throws IOException {
+        LaneState state = lanes.get(lane);
+        long start = System.nanoTime();
+        synchronized (this) {
+            Waiter waiter = new Waiter();
+            state.calls++;
+            // Ожидающие старших классов не могут стартовать, иначе их запустил бы promote(),
+            // а младшим классам доступно не больше слотов - обгона не будет
+            if (state.queue.isEmpty() && canStart(lane)) {
+                start(state);
+            } else {
+                state.queue.addLast(waiter);
+                state.maxQueued = Math.max(state.maxQueued, state.queue.size());
+                try {
+                    while (!waiter.admitted) {
+                        if (call.isCanceled()) {
+                            state.queue.remove(waiter);
+                            throw new IOException("Canceled");
+                        }
+                        wait(CANCEL_CHECK_MS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (!waiter.admitted) {
+                        state.queue.remove(waiter);
+                        throw new InterruptedIOException("Ожидание очереди прервано");
+                    }
+                    // Слот уже выдан - запрос выполняется, освобождение в interceptor()
+                }
+            }
+        }
+        state.wait.record(System.nanoTime() - start);
+    }
+
+    private synchronized void release(Lane lane) {
+        lanes.get(lane).running--;
+        totalRunning--;
+        promote();
+    }
+
+    // Выдает освободившиеся слоты ожидающим - сначала старшим классам
+    private void promote() {
+        boolean admitted = false;
+        for (Lane lane : Lane.values()) {
+            LaneState state = lanes.get(lane);
+            while (!state.queue.isEmpty() && canStart(lane)) {
+                state.queue.pollFirst().admitted = true;
+                start(state);
+                admitted = true;
+            }
+        }
+        if (admitted) {
+            notifyAll();
+        }
+    }
+
+    private boolean canStart(Lane lane) {
+        LaneState state = lanes.get(lane);
+        return state.running < state.limit && totalRunning < totalLimit - state.reserved;
+    }
+
+    private void start(LaneState state) {
+        state.running++;
+        totalRunning++;
+    }
+
+    public synchronized Snapshot snapshot() {
+        Map<Lane, LaneSnapshot> result = new EnumMap<>(Lane.class);
+        for (Map.Entry<Lane, LaneState> entry : lanes.entrySet()) {
+            LaneState state = entry.getValue();
+            result.put(entry.getKey(), new LaneSnapshot(state.calls, state.running, state.queue.size(),
+                    state.maxQueued, state.wait.percentiles()));
+        }
+        return new Snapshot(result);
+    }
+
+    private static class Waiter {
+        boolean admitted = false;
+    }
+
+    private static class LaneState {
+        // Сколько запросов класса может выполняться одновременно
+        final int limit;
+        // Сколько слотов общего предела оставлено старшим классам
+        final int reserved;
+        final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        final NetworkMetrics.Reservoir wait = new NetworkMetrics.Reservoir();
+        long calls = 0;
+        int running = 0;
+        int maxQueued = 0;
+
+        LaneState(int limit, int reserved) {
+            this.limit = limit;
+            this.reserved = reserved;
+        }
+    }
+
+    public static class LaneSnapshot {
+        public final long calls;
+        public final int running;
+        public final int queued;
+        public final int maxQueued;
+        // Время от постановки в очередь до получения слота
+        public final double waitP50Ms;
+        public final double waitP95Ms;
+        public final double waitP99Ms;
+
+        LaneSnapshot(long calls, int running, int queued, int maxQueued, double[] wait) {
+            this.calls = calls;
+            this.running = running;
+            this.queued = queued;
+            this.maxQueued = maxQueued;
+            this.waitP50Ms = wait[0];
+            this.waitP95Ms = wait[1];
+            this.waitP99Ms = wait[2];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "calls=%d running=%d queued=%d (max %d) wait p50/p95/p99=%.1f/%.1f/%.1fms",
+                    calls, running, queued, maxQueued, waitP50Ms, waitP95Ms, waitP99Ms);
+        }
+    }
+
+    public static class Snapshot {
+        public final Map<Lane, LaneSnapshot> lanes;
+
+        Snapshot(Map<Lane, LaneSnapshot> lanes) {
+            this.lanes = lanes;
+        }
+
+        public LaneSnapshot get(Lane lane) {
+            return lanes.get(lane);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (Map.Entry<Lane, LaneSnapshot> entry : lanes.entrySet()) {
+                builder.append(entry.getKey().headerValue()).append(": ").append(entry.getValue()).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+}
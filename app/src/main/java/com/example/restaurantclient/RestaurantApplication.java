@@ -0,0 +1,13 @@
+package com.example.restaurantclient;
+
+import android.app.Application;
+
+public class RestaurantApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Сетевой стек и первые запросы готовятся, пока система создает MainActivity
+        StartupOrchestrator.start(this);
+    }
+}
@@ -1,51 +1,67 @@
 package com.example.restaurantclient;
 
+import okhttp3.Headers;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
-import android.content.Context;
-import android.content.SharedPreferences;
 import java.io.IOException;
-import java.util.List;
 
 public class SessionInterceptor implements Interceptor {
-    private SharedPreferences preferences;
+    private static final String COOKIE_NAME = "JSESSIONID";
 
-    public SessionInterceptor(SharedPreferences preferences) {
-        this.preferences = preferences;
+    private final SessionStore sessionStore;
+
+    public SessionInterceptor(SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
     }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request originalRequest = chain.request();
 
-        String sessionId = preferences.getString("session_id", null);
-        Request.Builder requestBuilder = originalRequest.newBuilder();
-
-        if (sessionId != null) {
-            requestBuilder.addHeader("Cookie", "JSESSIONID=" + sessionId);
-        }
-
-        Response response = chain.proceed(requestBuilder.build());
-
-        List<String> cookies = response.headers("Set-Cookie");
-
-        for (String cookie : cookies) {
-            if (cookie.contains("JSESSIONID")) {
-
-                String[] cookieParts = cookie.split(";")[0].split("=");
+        // Значение берется из памяти, SharedPreferences на каждом запросе не читаются
+        String cookieHeader = sessionStore.getCookieHeader();
+        Request request = cookieHeader != null
+                ? originalRequest.newBuilder().addHeader("Cookie", cookieHeader).build()
+                : originalRequest;
 
-                if (cookieParts.length > 1) {
-                    String newSessionId = cookieParts[1];
+        Response response = chain.proceed(request);
 
-                    preferences.edit()
-                            .putString("session_id", newSessionId)
-                            .apply();
-                    break;
-                }
+        // Перебор заголовков по индексу - без промежуточных списков и split
+        Headers headers = response.headers();
+        for (int i = 0, size = headers.size(); i < size; i++) {
+            if (!"Set-Cookie".equalsIgnoreCase(headers.name(i))) {
+                continue;
+            }
+            String newSessionId = parseSessionId(headers.value(i));
+            if (newSessionId != null) {
+                sessionStore.update(newSessionId);
+                break;
             }
         }
 
         return response;
     }
-}
\ No newline at end of file
+
+    // "JSESSIONID=abc123; Path=/; HttpOnly" -> "abc123"
+    static String parseSessionId(String setCookie) {
+        int start = 0;
+        int length = setCookie.length();
+        while (start < length && setCookie.charAt(start) == ' ') {
+            start++;
+        }
+        if (!setCookie.startsWith(COOKIE_NAME, start)) {
+            return null;
+        }
+        int valueStart = start + COOKIE_NAME.length();
+        if (valueStart >= length || setCookie.charAt(valueStart) != '=') {
+            return null;
+        }
+        valueStart++;
+        int valueEnd = setCookie.indexOf(';', valueStart);
+        if (valueEnd < 0) {
+            valueEnd = length;
+        }
+        return valueEnd > valueStart ? setCookie.substring(valueStart, valueEnd) : null;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.restaurantclient;
+
+import android.content.SharedPreferences;
+
+ // Идентификатор сессии (JSESSIONID) и реплика сервера, которая его выдала (EndpointSelector), в памяти.
+ // SharedPreferences читаются один раз при первом обращении, запись на диск -
+ // только когда значение действительно изменилось. Чтение из любых потоков без блокировок
+
+public class SessionStore {
+    private static final String KEY_SESSION_ID = "session_id";
+    private static final String KEY_REPLICA = "session_replica";
+    private static final String COOKIE_PREFIX = "JSESSIONID=";
+
+    private final SharedPreferences preferences;
+    private volatile boolean loaded = false;
+    private volatile String sessionId;
+    // Готовое значение заголовка Cookie, чтобы не собирать строку на каждый запрос
+    private volatile String cookieHeader;
+    private volatile String replica;
+
+    public SessionStore(SharedPreferences preferences) {
+        this.preferences = preferences;
+    }
+
+    public String getSessionId() {
+        ensureLoaded();
+        return sessionId;
+    }
+
+    // null, если сессии нет
+    public String getCookieHeader() {
+        ensureLoaded();
+        return cookieHeader;
+    }
+
+    // Базовый URL реплики сессии; null - неизвестна
+    public String getReplica() {
+        ensureLoaded();
+        return replica;
+    }
+
+    public void setReplica(String baseUrl) {
+        ensureLoaded();
+        if (baseUrl.equals(replica)) {
+            return;
+        }
+        synchronized (this) {
+            if (baseUrl.equals(replica)) {
+                return;
+            }
+            replica = baseUrl;
+            preferences.edit().putString(KEY_REPLICA, baseUrl).apply();
+        }
+    }
+
+    public void update(String newSessionId) {
+        ensureLoaded();
+        if (newSessionId.equals(sessionId)) {
+            return;
+        }
+        synchronized (this) {
+            if (newSessionId.equals(sessionId)) {
+                return;
+            }
+            set(newSessionId);
+            preferences.edit().putString(KEY_SESSION_ID, newSessionId).apply();
+        }
+    }
+
+    public synchronized void clear() {
+        loaded = true;
+        set(null);
+        replica = null;
+        preferences.edit().remove(KEY_SESSION_ID).remove(KEY_REPLICA).apply();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                set(preferences.getString(KEY_SESSION_ID, null));
+                replica = preferences.getString(KEY_REPLICA, null);
+                loaded = true;
+            }
+        }
+    }
+
+    private void set(String value) {
+        sessionId = value;
+        cookieHeader = value != null ? COOKIE_PREFIX + value : null;
+    }
+}
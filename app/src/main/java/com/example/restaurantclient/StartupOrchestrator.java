@@ -0,0 +1,110 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.adapter.ClientPagingSource;
+import com.example.restaurantclient.api.ClientApi;
+import com.example.restaurantclient.models.AuthResponse;
+import com.example.restaurantclient.models.Client;
+import android.content.Context;
+import android.util.Log;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Call;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+ // Холодный старт: сетевой стек (OkHttp, Retrofit, кэш, сессия) собирается в фоновом потоке,
+ // соединение с сервером открывается заранее, а проверка авторизации и первая страница клиентов
+ // запрашиваются параллельно еще до того, как MainActivity создаст экран.
+ // MainActivity забирает эти запросы через takeAuthCheck() / takeFirstClientsPage().
+ // Без сохраненной сессии запросы заранее не отправляются (ответ был бы "не авторизован"),
+ // а при смене сессии (вход, выход, новый JSESSIONID от сервера) запущенные заранее выбрасываются
+
+public class StartupOrchestrator {
+    private static final String TAG = "StartupOrchestrator";
+    // Более старые ответы экрану не отдаются - лучше сходить на сервер заново
+    private static final long MAX_PREFETCH_AGE_MS = 30_000;
+
+    private static PrefetchedCall<AuthResponse> authCheck;
+    private static PrefetchedCall<List<Client>> firstClientsPage;
+    // Сессия, с которой отправлены запросы
+    private static SessionStore sessionStore;
+    private static String prefetchSessionId;
+
+    public static void start(Context context) {
+        Context appContext = context.getApplicationContext();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.execute(() -> {
+            ApiClient.getClient(appContext);
+
+            SessionStore session = ApiClient.getSessionStore(appContext);
+            String sessionId = session.getSessionId();
+            if (sessionId != null) {
+                // Оба запроса идут одновременно, каждый по своему соединению
+                PrefetchedCall<AuthResponse> auth = new PrefetchedCall<>(ApiClient.getAuthApi(appContext).checkAuth());
+                PrefetchedCall<List<Client>> page = new PrefetchedCall<>(
+                        ApiClient.getClientApi(appContext).getClientsPage(0, ClientPagingSource.DEFAULT_PAGE_SIZE, ClientApi.LIST_FIELDS));
+                synchronized (StartupOrchestrator.class) {
+                    authCheck = auth;
+                    firstClientsPage = page;
+                    sessionStore = session;
+                    prefetchSessionId = sessionId;
+                }
+            }
+
+            // Еще одно соединение в пул keep-alive - для первого действия пользователя
+            prewarmConnection(ApiClient.getOkHttpClient(), ApiClient.getBaseUrl());
+            executor.shutdown();
+        });
+    }
+
+    // null, если предзагрузки нет, ее уже забрали, она устарела или отправлена с другой сессией
+    public static synchronized Call<AuthResponse> takeAuthCheck() {
+        discardIfSessionChanged();
+        Call<AuthResponse> call = authCheck != null && authCheck.isFresh(MAX_PREFETCH_AGE_MS) ? authCheck : null;
+        authCheck = null;
+        return call;
+    }
+
+    public static synchronized Call<List<Client>> takeFirstClientsPage() {
+        discardIfSessionChanged();
+        Call<List<Client>> call = firstClientsPage != null && firstClientsPage.isFresh(MAX_PREFETCH_AGE_MS) ? firstClientsPage : null;
+        firstClientsPage = null;
+        return call;
+    }
+
+    // Вход и выход: сервер мог сохранить прежний JSESSIONID, но ответы, полученные до входа, уже неверны
+    public static synchronized void discardPrefetched() {
+        if (authCheck != null) {
+            authCheck.cancel();
+            authCheck = null;
+        }
+        if (firstClientsPage != null) {
+            firstClientsPage.cancel();
+            firstClientsPage = null;
+        }
+        prefetchSessionId = null;
+    }
+
+    private static void discardIfSessionChanged() {
+        if (prefetchSessionId == null) {
+            return;
+        }
+        if (!prefetchSessionId.equals(sessionStore.getSessionId())) {
+            discardPrefetched();
+        }
+    }
+
+    private static void prewarmConnection(OkHttpClient client, String baseUrl) {
+        Request request = new Request.Builder().url(baseUrl).head()
+                .header(RequestScheduler.HEADER, RequestScheduler.Lane.BACKGROUND.headerValue())
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            Log.d(TAG, "Соединение с сервером открыто: " + response.code());
+        } catch (IOException e) {
+            Log.d(TAG, "Сервер недоступен при старте: " + e.getMessage());
+        }
+    }
+}
@@ -6,16 +6,33 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageButton;
+import android.widget.SectionIndexer;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.List;
 
 
- // Связывает данные о клиентах (List<Client>) с элементами списка в UI
+ // Связывает данные о клиентах (List<Client>) с элементами списка в UI.
+ // Новый список сравнивается со старым в фоновом потоке (AsyncListDiffer),
+ // в RecyclerView уходят только точечные вставки, удаления, перемещения и изменения.
+ // Если задан SectionProvider, у первой строки каждого раздела показывается заголовок,
+ // а список разделов доступен через SectionIndexer (для быстрой прокрутки).
+ // Привязка строки ничего не создает: обработчики нажатий ставятся один раз на ViewHolder
+ // и берут клиента по позиции, разделы считаются один раз на список (ClientRowBinder).
+ // id строки - id клиента (stable ids), поэтому RecyclerView сохраняет анимации и состояние строк
 
-public class ClientAdapter extends RecyclerView.Adapter<ClientAdapter.ViewHolder> {
-    private List<Client> clients;
+public class ClientAdapter extends RecyclerView.Adapter<ClientAdapter.ViewHolder> implements SectionIndexer {
+    // Payload для перепривязки только заголовка раздела
+    private static final Object PAYLOAD_SECTION = new Object();
+
+    // Текущий список differ, его разделы и привязка строк
+    private final ClientRowBinder rows = new ClientRowBinder();
+    private final AsyncListDiffer<Client> differ = new AsyncListDiffer<>(new SectionAwareUpdateCallback(),
+            new AsyncDifferConfig.Builder<>(new ClientDiffCallback()).build());
     private OnClientClickListener listener;
 
     public interface OnClientClickListener {
@@ -24,54 +41,185 @@ public class ClientAdapter extends RecyclerView.Adapter<ClientAdapter.ViewHolder
     }
 
 
-    public static class ViewHolder extends RecyclerView.ViewHolder {
-        TextView tvFullName, tvContacts;
+    public static class ViewHolder extends RecyclerView.ViewHolder implements ClientRowBinder.Row {
+        TextView tvSection, tvFullName, tvContacts;
         ImageButton btnEdit, btnDelete;
 
         public ViewHolder(View itemView) {
             super(itemView);
+            tvSection = itemView.findViewById(R.id.tvSection);
             tvFullName = itemView.findViewById(R.id.tvFullName);
             tvContacts = itemView.findViewById(R.id.tvContacts);
             btnEdit = itemView.findViewById(R.id.btnEdit);
             btnDelete = itemView.findViewById(R.id.btnDelete);
         }
+
+        @Override
+        public void showSection(String section) {
+            if (section != null) {
+                tvSection.setText(section);
+                tvSection.setVisibility(View.VISIBLE);
+            } else {
+                tvSection.setVisibility(View.GONE);
+            }
+        }
+
+        @Override
+        public void showClient(String fullName, String contacts, boolean pending) {
+            tvFullName.setText(fullName);
+            tvContacts.setText(contacts);
+            // Неподтвержденные сервером строки показываются полупрозрачными
+            itemView.setAlpha(pending ? 0.5f : 1f);
+        }
     }
 
-    public ClientAdapter(List<Client> clients, OnClientClickListener listener) {
-        this.clients = clients;
+    public ClientAdapter(OnClientClickListener listener) {
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    // Список должен быть новым экземпляром: differ сравнивает его с предыдущим,
+    // поэтому изменять уже переданный список и его элементы нельзя
+    public void submitList(List<Client> newClients) {
+        differ.submitList(newClients);
+    }
+
+    public void submitList(List<Client> newClients, Runnable commitCallback) {
+        differ.submitList(newClients, commitCallback);
+    }
+
+    public List<Client> getCurrentList() {
+        return differ.getCurrentList();
+    }
+
+    public void setSectionProvider(SectionProvider sectionProvider) {
+        rows.setSectionProvider(sectionProvider);
+        refreshSections();
+    }
+
+    // Перепривязывает заголовки всех строк, например после смены порядка сортировки
+    public void refreshSections() {
+        rows.invalidateSections();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SECTION);
     }
 
-    @NonNull
     @Override
-    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_client, parent, false);
-        return new ViewHolder(view);
+    public Object[] getSections() {
+        return rows.getSections();
     }
 
     @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+    public int getPositionForSection(int sectionIndex) {
+        return rows.getPositionForSection(sectionIndex);
+    }
 
-        Client client = clients.get(position);
-        holder.tvFullName.setText(client.getFullName());
-        holder.tvContacts.setText(client.getContacts() != null ? client.getContacts() : "Нет контактов");
+    @Override
+    public int getSectionForPosition(int position) {
+        return rows.getSectionForPosition(position);
+    }
 
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_client, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        // Клиент берется в момент нажатия: строка могла сдвинуться или смениться после привязки
         holder.btnEdit.setOnClickListener(v -> {
-            if (listener != null) {
+            Client client = clientAt(holder.getBindingAdapterPosition());
+            if (client != null && listener != null) {
                 listener.onEditClick(client);
             }
         });
-
         holder.btnDelete.setOnClickListener(v -> {
-            if (listener != null) {
+            Client client = clientAt(holder.getBindingAdapterPosition());
+            if (client != null && listener != null) {
                 listener.onDeleteClick(client);
             }
         });
+        return holder;
+    }
+
+    private Client clientAt(int position) {
+        return rows.clientAt(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return rows.getItemId(position);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && allSectionPayloads(payloads)) {
+            rows.bindSection(holder, position);
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
+
+    private static boolean allSectionPayloads(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_SECTION) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        rows.bind(holder, position);
     }
 
     @Override
     public int getItemCount() {
-        return clients.size();
+        return rows.getCount();
+    }
+
+    // Передает изменения списка в адаптер и, кроме того, перепривязывает заголовок строки,
+    // оказавшейся сразу после вставки, удаления или перемещения: ее соседка сверху сменилась.
+    // Позиции в вызовах относятся к промежуточному состоянию списка, поэтому его размер
+    // отслеживается здесь же
+    private class SectionAwareUpdateCallback implements ListUpdateCallback {
+        private int count = 0;
+
+        @Override
+        public void onInserted(int position, int itemCount) {
+            rows.setClients(differ.getCurrentList());
+            count += itemCount;
+            notifyItemRangeInserted(position, itemCount);
+            refreshSectionAt(position + itemCount);
+        }
+
+        @Override
+        public void onRemoved(int position, int itemCount) {
+            rows.setClients(differ.getCurrentList());
+            count -= itemCount;
+            notifyItemRangeRemoved(position, itemCount);
+            refreshSectionAt(position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            rows.setClients(differ.getCurrentList());
+            notifyItemMoved(fromPosition, toPosition);
+            refreshSectionAt(fromPosition);
+            refreshSectionAt(fromPosition + 1);
+            refreshSectionAt(toPosition + 1);
+        }
+
+        @Override
+        public void onChanged(int position, int itemCount, Object payload) {
+            rows.setClients(differ.getCurrentList());
+            notifyItemRangeChanged(position, itemCount, payload);
+            refreshSectionAt(position + itemCount);
+        }
+
+        private void refreshSectionAt(int position) {
+            if (rows.hasSectionProvider() && position >= 0 && position < count) {
+                notifyItemChanged(position, PAYLOAD_SECTION);
+            }
+        }
     }
-}
\ No newline at end of file
+}
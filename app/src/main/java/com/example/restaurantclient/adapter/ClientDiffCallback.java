@@ -0,0 +1,25 @@
+package com.example.restaurantclient.adapter;
+
+import com.example.restaurantclient.models.Client;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import java.util.Objects;
+
+
+ // Сравнение клиентов для DiffUtil: одна и та же строка - по id,
+ // изменилось ли содержимое - по ФИО, контактам и признаку неподтвержденного изменения
+
+public class ClientDiffCallback extends DiffUtil.ItemCallback<Client> {
+
+    @Override
+    public boolean areItemsTheSame(@NonNull Client oldItem, @NonNull Client newItem) {
+        return oldItem.getId() == newItem.getId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Client oldItem, @NonNull Client newItem) {
+        return Objects.equals(oldItem.getFullName(), newItem.getFullName())
+                && Objects.equals(oldItem.getContacts(), newItem.getContacts())
+                && oldItem.isPending() == newItem.isPending();
+    }
+}
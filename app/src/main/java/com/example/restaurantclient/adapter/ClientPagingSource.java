@@ -0,0 +1,176 @@
+package com.example.restaurantclient.adapter;
+
+import com.example.restaurantclient.api.ClientApi;
+import com.example.restaurantclient.api.ClientRepository;
+import com.example.restaurantclient.models.Client;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.util.List;
+
+
+ // Постраничный источник данных для ClientAdapter:
+ // первая страница грузится сразу, следующие - заранее, пока пользователь листает список.
+ // Версия для clients/changes берется из ответа на первую страницу (ClientApi.SYNC_VERSION_HEADER),
+ // поэтому вся таблица ради нее не загружается.
+ // Страницы запрашиваются по id (afterId), а не по смещению: удаление строки перед уже
+ // загруженной частью не сдвигает следующие страницы, и ни одна строка не пропускается
+
+public class ClientPagingSource {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_PREFETCH_DISTANCE = 20;
+
+    private final ClientApi clientApi;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final PageListener listener;
+
+    // Последний id загруженной страницы - с него начинается следующая
+    private int afterId = 0;
+    // Сколько строк пришло с сервера с начала загрузки - по нему определяется, пора ли грузить дальше
+    private int loadedCount = 0;
+    private boolean endReached = false;
+    // Версия данных из ответа на первую страницу (ClientApi.SYNC_VERSION_HEADER)
+    private long syncVersion = ClientRepository.NO_SYNC_VERSION;
+    private Call<List<Client>> inFlight;
+
+    public interface PageListener {
+        // first == true - первая страница после refresh(), last == true - дальше страниц нет
+        void onPageLoaded(List<Client> page, boolean first, boolean last);
+        void onPageError(String message);
+    }
+
+    public ClientPagingSource(ClientApi clientApi, PageListener listener) {
+        this(clientApi, DEFAULT_PAGE_SIZE, DEFAULT_PREFETCH_DISTANCE, listener);
+    }
+
+    public ClientPagingSource(ClientApi clientApi, int pageSize, int prefetchDistance, PageListener listener) {
+        this.clientApi = clientApi;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.listener = listener;
+    }
+
+    // Сбрасывает состояние и загружает первую страницу
+    public void refresh() {
+        refresh(null);
+    }
+
+    // firstPageCall - уже запущенный запрос первой страницы (afterId 0, тот же размер страницы)
+    // или null, если его нужно создать
+    public void refresh(Call<List<Client>> firstPageCall) {
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+        afterId = 0;
+        loadedCount = 0;
+        endReached = false;
+        loadPage(firstPageCall);
+    }
+
+    // Вызывается при прокрутке: если до конца загруженных с сервера строк осталось
+    // меньше prefetchDistance - заранее запрашиваем следующую страницу.
+    // Сравнивается с числом загруженных строк, а не с длиной списка: строки с диска в ней уже учтены
+    public void onPositionVisible(int lastVisiblePosition) {
+        if (lastVisiblePosition >= loadedCount - prefetchDistance) {
+            loadPage(null);
+        }
+    }
+
+    public boolean isLoading() {
+        return inFlight != null;
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    public long getSyncVersion() {
+        return syncVersion;
+    }
+
+    // Список уже актуален без постраничной загрузки (например, после clients/changes):
+    // прокрутка до конца не должна запускать загрузку с первой страницы
+    public void markComplete() {
+        cancel();
+        endReached = true;
+    }
+
+    // Отменяет загрузку текущей страницы (например, при закрытии экрана)
+    public void cancel() {
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+    }
+
+    public RecyclerView.OnScrollListener createScrollListener() {
+        return new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) {
+                    return;
+                }
+                RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+                if (layoutManager instanceof LinearLayoutManager) {
+                    int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+                    onPositionVisible(lastVisible);
+                }
+            }
+        };
+    }
+
+    private void loadPage(Call<List<Client>> preparedCall) {
+        if (inFlight != null || endReached) {
+            return;
+        }
+
+        final boolean first = afterId == 0;
+        Call<List<Client>> call = preparedCall != null ? preparedCall
+                : clientApi.getClientsPage(afterId, pageSize, ClientApi.LIST_FIELDS);
+        inFlight = call;
+        call.enqueue(new Callback<List<Client>>() {
+            @Override
+            public void onResponse(Call<List<Client>> call, Response<List<Client>> response) {
+                if (call != inFlight) {
+                    return;
+                }
+                inFlight = null;
+
+                if (response.isSuccessful() && response.body() != null) {
+                    List<Client> page = response.body();
+                    int lastId = afterId;
+                    for (Client client : page) {
+                        lastId = Math.max(lastId, client.getId());
+                    }
+                    // Сервер без поддержки limit вернет всю таблицу целиком, а без afterId -
+                    // снова те же строки: в обоих случаях дальше грузить нечего
+                    endReached = page.size() != pageSize || lastId == afterId;
+                    afterId = lastId;
+                    loadedCount += page.size();
+                    if (first) {
+                        syncVersion = ClientRepository.syncVersionOf(response.headers());
+                    }
+                    listener.onPageLoaded(page, first, endReached);
+                } else {
+                    listener.onPageError("Ошибка загрузки клиентов");
+                }
+            }
+
+            @Override
+            public void onFailure(Call<List<Client>> call, Throwable t) {
+                if (call != inFlight) {
+                    return;
+                }
+                inFlight = null;
+                if (!call.isCanceled()) {
+                    listener.onPageError("Ошибка сети: " + t.getMessage());
+                }
+            }
+        });
+    }
+}
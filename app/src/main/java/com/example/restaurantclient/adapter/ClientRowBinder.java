@@ -0,0 +1,118 @@
+package com.example.restaurantclient.adapter;
+
+import com.example.restaurantclient.models.Client;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+ // Разделы и привязка строк списка клиентов без RecyclerView и android.view:
+ // ClientAdapter передает сюда текущий список, а строку представляет через Row.
+ // Разделы считаются один раз на список, привязка строки ничего не создает
+
+public class ClientRowBinder {
+    static final String NO_CONTACTS = "Нет контактов";
+
+    // Строка списка: ViewHolder в приложении, подделка в JVM-тестах
+    public interface Row {
+        // null - у строки нет заголовка раздела
+        void showSection(String section);
+
+        void showClient(String fullName, String contacts, boolean pending);
+    }
+
+    private List<Client> clients = Collections.emptyList();
+    private SectionProvider sectionProvider;
+    // Разделы текущего списка: названия и позиции первых строк; null - нужно пересчитать
+    private String[] sections;
+    private int[] sectionPositions;
+
+    public void setClients(List<Client> clients) {
+        this.clients = clients;
+        sections = null;
+    }
+
+    public void setSectionProvider(SectionProvider sectionProvider) {
+        this.sectionProvider = sectionProvider;
+        sections = null;
+    }
+
+    public boolean hasSectionProvider() {
+        return sectionProvider != null;
+    }
+
+    // Например, после смены порядка сортировки
+    public void invalidateSections() {
+        sections = null;
+    }
+
+    public int getCount() {
+        return clients.size();
+    }
+
+    public Client clientAt(int position) {
+        return position >= 0 && position < clients.size() ? clients.get(position) : null;
+    }
+
+    public long getItemId(int position) {
+        return clients.get(position).getId();
+    }
+
+    public String[] getSections() {
+        ensureSections();
+        return sections;
+    }
+
+    public int getPositionForSection(int sectionIndex) {
+        ensureSections();
+        if (sectionPositions.length == 0) {
+            return 0;
+        }
+        return sectionPositions[Math.max(0, Math.min(sectionIndex, sectionPositions.length - 1))];
+    }
+
+    public int getSectionForPosition(int position) {
+        ensureSections();
+        int section = 0;
+        while (section + 1 < sectionPositions.length && sectionPositions[section + 1] <= position) {
+            section++;
+        }
+        return section;
+    }
+
+    private void ensureSections() {
+        if (sections != null) {
+            return;
+        }
+        List<String> names = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        String previous = null;
+        for (int i = 0; sectionProvider != null && i < clients.size(); i++) {
+            String section = sectionProvider.sectionOf(clients.get(i));
+            if (section != null && !section.equals(previous)) {
+                names.add(section);
+                positions.add(i);
+            }
+            previous = section;
+        }
+        sections = names.toArray(new String[0]);
+        sectionPositions = new int[positions.size()];
+        for (int i = 0; i < sectionPositions.length; i++) {
+            sectionPositions[i] = positions.get(i);
+        }
+    }
+
+    // Заголовок показывается у строк из sectionPositions - без обращения к SectionProvider на каждой привязке
+    public void bindSection(Row row, int position) {
+        ensureSections();
+        int section = Arrays.binarySearch(sectionPositions, position);
+        row.showSection(section >= 0 ? sections[section] : null);
+    }
+
+    public void bind(Row row, int position) {
+        Client client = clients.get(position);
+        bindSection(row, position);
+        String contacts = client.getContacts();
+        row.showClient(client.getFullName(), contacts != null ? contacts : NO_CONTACTS, client.isPending());
+    }
+}
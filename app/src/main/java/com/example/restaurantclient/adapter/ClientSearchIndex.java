@@ -0,0 +1,378 @@
+package com.example.restaurantclient.adapter;
+
+import com.example.restaurantclient.models.Client;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+
+ // Поисковый индекс по ФИО и контактам клиентов, живущий в памяти.
+ // - префиксный индекс слов (TreeMap): короткие запросы "ив" находят "Иванов", "Ивлева";
+ // - индекс триграмм: запросы от 3 символов находят и подстроки ("ванов", "4567").
+ // Регистр не учитывается (в том числе для кириллицы), "ё" равна "е"; у телефонов
+ // дополнительно индексируются одни цифры, поэтому "9001234567" найдет "+7 (900) 123-45-67".
+ // Индекс обновляется построчно (sync сравнивает снимки по ссылкам), а не перестраивается.
+ // Используется из одного потока
+
+public class ClientSearchIndex {
+    private static final int GRAM = 3;
+
+    private final Map<Integer, Client> clients = new HashMap<>();
+    // Нормализованный текст строки и ее слова - нужны для проверки совпадения и удаления из индекса
+    private final Map<Integer, String> texts = new HashMap<>();
+    private final Map<Integer, String[]> words = new HashMap<>();
+    private final TreeMap<String, IntSet> wordIndex = new TreeMap<>();
+    private final Map<String, IntSet> gramIndex = new HashMap<>();
+
+    // Приводит индекс в соответствие со снимком списка. Клиенты в снимках неизменяемы,
+    // поэтому переиндексируются только строки, объект которых сменился
+    public void sync(List<Client> snapshot) {
+        Map<Integer, Client> seen = new HashMap<>(snapshot.size() * 2);
+        for (Client client : snapshot) {
+            seen.put(client.getId(), client);
+            if (clients.get(client.getId()) != client) {
+                put(client);
+            }
+        }
+        if (clients.size() != seen.size()) {
+            List<Integer> removed = new ArrayList<>();
+            for (Integer id : clients.keySet()) {
+                if (!seen.containsKey(id)) {
+                    removed.add(id);
+                }
+            }
+            for (Integer id : removed) {
+                remove(id);
+            }
+        }
+    }
+
+    public void put(Client client) {
+        int id = client.getId();
+        remove(id);
+
+        String text = normalize(client.getFullName()) + " " + normalize(client.getContacts());
+        String digits = digitsOf(client.getContacts());
+        if (digits.length() > 0) {
+            text = text + " " + digits;
+        }
+        String[] tokens = tokenize(text);
+
+        clients.put(id, client);
+        texts.put(id, text);
+        words.put(id, tokens);
+        for (String token : tokens) {
+            postings(wordIndex, token).add(id);
+            for (int i = 0; i + GRAM <= token.length(); i++) {
+                postings(gramIndex, token.substring(i, i + GRAM)).add(id);
+            }
+        }
+    }
+
+    public void remove(int id) {
+        String[] tokens = words.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        clients.remove(id);
+        texts.remove(id);
+        for (String token : tokens) {
+            removePosting(wordIndex, token, id);
+            for (int i = 0; i + GRAM <= token.length(); i++) {
+                removePosting(gramIndex, token.substring(i, i + GRAM), id);
+            }
+        }
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    // id клиентов, у которых каждое слово запроса совпадает с началом слова или (от 3 символов) с подстрокой.
+    // По индексу ищется только самое длинное (самое избирательное) слово запроса,
+    // остальные проверяются на уже найденных кандидатах
+    public IntSet search(String query) {
+        String[] queryTokens = tokenize(normalize(query));
+        if (queryTokens.length == 0) {
+            return new IntSet();
+        }
+        Arrays.sort(queryTokens, (a, b) -> b.length() - a.length());
+        String first = queryTokens[0];
+        IntSet result = first.length() < GRAM ? matchPrefix(first) : matchSubstring(first);
+        for (int t = 1; t < queryTokens.length && result.size() > 0; t++) {
+            IntSet narrowed = new IntSet();
+            for (int index = result.nextSlot(-1); index >= 0; index = result.nextSlot(index)) {
+                int id = result.valueAt(index);
+                if (matches(id, queryTokens[t])) {
+                    narrowed.add(id);
+                }
+            }
+            result = narrowed;
+        }
+        return result;
+    }
+
+    private boolean matches(int id, String token) {
+        if (token.length() >= GRAM) {
+            return texts.get(id).contains(token);
+        }
+        for (String word : words.get(id)) {
+            if (word.startsWith(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Отфильтрованное представление снимка: копируются только позиции совпавших строк, не сами клиенты.
+    // Пустой запрос возвращает снимок как есть
+    public List<Client> filter(List<Client> snapshot, String query) {
+        if (query == null || tokenize(normalize(query)).length == 0) {
+            return snapshot;
+        }
+        IntSet ids = search(query);
+        int[] positions = new int[ids.size()];
+        int count = 0;
+        for (int i = 0; i < snapshot.size() && count < positions.length; i++) {
+            if (ids.contains(snapshot.get(i).getId())) {
+                positions[count++] = i;
+            }
+        }
+        return new FilteredList(snapshot, positions, count);
+    }
+
+    private IntSet matchPrefix(String prefix) {
+        IntSet result = new IntSet();
+        SortedMap<String, IntSet> range = wordIndex.subMap(prefix, prefix + Character.MAX_VALUE);
+        for (IntSet ids : range.values()) {
+            result.addAll(ids);
+        }
+        return result;
+    }
+
+    private IntSet matchSubstring(String token) {
+        // Кандидаты - пересечение триграмм, начиная с самой редкой; затем проверка по тексту
+        IntSet smallest = null;
+        for (int i = 0; i + GRAM <= token.length(); i++) {
+            IntSet ids = gramIndex.get(token.substring(i, i + GRAM));
+            if (ids == null) {
+                return new IntSet();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        IntSet result = new IntSet();
+        if (smallest == null) {
+            return result;
+        }
+        for (int index = smallest.nextSlot(-1); index >= 0; index = smallest.nextSlot(index)) {
+            int id = smallest.valueAt(index);
+            if (texts.get(id).contains(token)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private static IntSet postings(Map<String, IntSet> index, String key) {
+        IntSet ids = index.get(key);
+        if (ids == null) {
+            ids = new IntSet();
+            index.put(key, ids);
+        }
+        return ids;
+    }
+
+    private static void removePosting(Map<String, IntSet> index, String key, int id) {
+        IntSet ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.size() == 0) {
+                index.remove(key);
+            }
+        }
+    }
+
+    // Нижний регистр (Character.toLowerCase корректен для кириллицы), "ё" -> "е",
+    // все, кроме букв и цифр, -> пробел
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        char[] chars = new char[value.length()];
+        for (int i = 0; i < chars.length; i++) {
+            char c = Character.toLowerCase(value.charAt(i));
+            if (c == 'ё') {
+                c = 'е';
+            }
+            chars[i] = Character.isLetterOrDigit(c) ? c : ' ';
+        }
+        return new String(chars);
+    }
+
+    private static String digitsOf(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    private static String[] tokenize(String normalized) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean separator = i == normalized.length() || normalized.charAt(i) == ' ';
+            if (separator && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            } else if (!separator && start < 0) {
+                start = i;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static class FilteredList extends AbstractList<Client> {
+        private final List<Client> source;
+        private final int[] positions;
+        private final int size;
+
+        FilteredList(List<Client> source, int[] positions, int size) {
+            this.source = source;
+            this.positions = positions;
+            this.size = size;
+        }
+
+        @Override
+        public Client get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+            }
+            return source.get(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // Компактное множество int (открытая адресация) - без упаковки в Integer,
+    // чтобы индекс на 100 тысяч клиентов не занимал сотни мегабайт
+    public static class IntSet {
+        private static final int FREE = Integer.MIN_VALUE;
+
+        private int[] slots = newSlots(8);
+        private int size = 0;
+
+        private static int[] newSlots(int capacity) {
+            int[] slots = new int[capacity];
+            Arrays.fill(slots, FREE);
+            return slots;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(int value) {
+            int mask = slots.length - 1;
+            for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+                if (slots[i] == FREE) {
+                    return false;
+                }
+                if (slots[i] == value) {
+                    return true;
+                }
+            }
+        }
+
+        public void add(int value) {
+            if ((size + 1) * 2 > slots.length) {
+                resize(slots.length * 2);
+            }
+            int mask = slots.length - 1;
+            int i = mix(value) & mask;
+            while (slots[i] != FREE) {
+                if (slots[i] == value) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = value;
+            size++;
+        }
+
+        // Удаление со сдвигом последующих элементов цепочки - без "надгробий"
+        public void remove(int value) {
+            int mask = slots.length - 1;
+            int i = mix(value) & mask;
+            while (slots[i] != value) {
+                if (slots[i] == FREE) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = FREE;
+            size--;
+            for (int j = (i + 1) & mask; slots[j] != FREE; j = (j + 1) & mask) {
+                int moved = slots[j];
+                slots[j] = FREE;
+                int k = mix(moved) & mask;
+                while (slots[k] != FREE) {
+                    k = (k + 1) & mask;
+                }
+                slots[k] = moved;
+            }
+        }
+
+        void addAll(IntSet other) {
+            for (int index = other.nextSlot(-1); index >= 0; index = other.nextSlot(index)) {
+                add(other.slots[index]);
+            }
+        }
+
+        // Обход: for (i = nextSlot(-1); i >= 0; i = nextSlot(i)) valueAt(i)
+        public int nextSlot(int from) {
+            for (int i = from + 1; i < slots.length; i++) {
+                if (slots[i] != FREE) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public int valueAt(int slot) {
+            return slots[slot];
+        }
+
+        private void resize(int capacity) {
+            int[] old = slots;
+            slots = newSlots(capacity);
+            size = 0;
+            for (int value : old) {
+                if (value != FREE) {
+                    add(value);
+                }
+            }
+        }
+
+        private static int mix(int value) {
+            int h = value * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
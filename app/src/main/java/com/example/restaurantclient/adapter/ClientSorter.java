@@ -0,0 +1,204 @@
+package com.example.restaurantclient.adapter;
+
+import com.example.restaurantclient.models.Client;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+
+ // Отсортированное представление списка клиентов: по имени (с учетом правил русского языка),
+ // по id или по недавним изменениям. Ключ сортировки (CollationKey) вычисляется один раз
+ // на строку и пересчитывается только при изменении ФИО, поэтому сравнение - это сравнение байтов,
+ // а не вызов Collator. После правки одной строки она переставляется на новое место двоичным
+ // поиском, остальные не пересортировываются. Используется из одного потока
+
+public class ClientSorter implements SectionProvider {
+    public enum Mode { NAME, ID, RECENT }
+
+    // Если за один снимок изменилось больше этой доли строк, дешевле отсортировать все заново
+    private static final int BULK_CHANGE_DIVISOR = 8;
+
+    private final Collator collator;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final ArrayList<Entry> sorted = new ArrayList<>();
+    private Mode mode = Mode.NAME;
+    private Comparator<Entry> comparator = comparatorFor(Mode.NAME);
+    // Счетчик локальных изменений - порядок для режима RECENT
+    private long changeCounter = 0;
+
+    private static class Entry {
+        Client client;
+        CollationKey key;
+        String section;
+        // 0 - строка пришла с сервера и локально не менялась
+        long changedAt;
+    }
+
+    public ClientSorter() {
+        this(new Locale("ru"));
+    }
+
+    public ClientSorter(Locale locale) {
+        collator = Collator.getInstance(locale);
+        // Регистр и "ё"/"е" различаются только при равенстве остального
+        collator.setStrength(Collator.TERTIARY);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        if (this.mode == mode) {
+            return;
+        }
+        this.mode = mode;
+        comparator = comparatorFor(mode);
+        Collections.sort(sorted, comparator);
+    }
+
+    // Приводит представление в соответствие со снимком списка. Как и в ClientSearchIndex,
+    // изменившиеся строки определяются по смене объекта Client
+    public void sync(List<Client> snapshot) {
+        Map<Integer, Client> seen = new HashMap<>(snapshot.size() * 2);
+        List<Client> changed = new ArrayList<>();
+        for (Client client : snapshot) {
+            seen.put(client.getId(), client);
+            Entry entry = entries.get(client.getId());
+            if (entry == null || entry.client != client) {
+                changed.add(client);
+            }
+        }
+        List<Integer> removed = new ArrayList<>();
+        if (!changed.isEmpty() || entries.size() != seen.size()) {
+            for (Integer id : entries.keySet()) {
+                if (!seen.containsKey(id)) {
+                    removed.add(id);
+                }
+            }
+        }
+
+        boolean bulk = changed.size() + removed.size() > sorted.size() / BULK_CHANGE_DIVISOR + 16;
+        for (Integer id : removed) {
+            Entry entry = entries.remove(id);
+            if (!bulk) {
+                sorted.remove(indexOf(entry));
+            }
+        }
+        for (Client client : changed) {
+            Entry entry = entries.get(client.getId());
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(client.getId(), entry);
+                update(entry, client, client.isPending());
+                if (!bulk) {
+                    insert(entry);
+                }
+            } else if (!bulk && affectsOrder(entry, client)) {
+                sorted.remove(indexOf(entry));
+                update(entry, client, true);
+                insert(entry);
+            } else {
+                update(entry, client, true);
+            }
+        }
+        if (bulk) {
+            sorted.clear();
+            sorted.addAll(entries.values());
+            Collections.sort(sorted, comparator);
+        }
+    }
+
+    // Новый список (как того требует ClientAdapter.submitList) в текущем порядке
+    public List<Client> getSortedList() {
+        List<Client> result = new ArrayList<>(sorted.size());
+        for (Entry entry : sorted) {
+            result.add(entry.client);
+        }
+        return result;
+    }
+
+    // Заголовок раздела - первая буква ФИО; разделы есть только при сортировке по имени
+    @Override
+    public String sectionOf(Client client) {
+        if (mode != Mode.NAME) {
+            return null;
+        }
+        Entry entry = entries.get(client.getId());
+        return entry != null ? entry.section : sectionFor(client.getFullName());
+    }
+
+    private void update(Entry entry, Client client, boolean changedLocally) {
+        Client previous = entry.client;
+        entry.client = client;
+        boolean textChanged = previous == null
+                || !Objects.equals(previous.getFullName(), client.getFullName())
+                || !Objects.equals(previous.getContacts(), client.getContacts());
+        if (previous == null || !Objects.equals(previous.getFullName(), client.getFullName())) {
+            String name = client.getFullName() != null ? client.getFullName() : "";
+            entry.key = collator.getCollationKey(name);
+            entry.section = sectionFor(name);
+        }
+        // Повторно загруженная с сервера строка без изменений не считается недавно измененной
+        if (changedLocally && (textChanged || client.isPending())) {
+            entry.changedAt = ++changeCounter;
+        }
+    }
+
+    // Меняет ли новая версия строки ее место в текущем порядке
+    private boolean affectsOrder(Entry entry, Client client) {
+        switch (mode) {
+            case NAME:
+                return !Objects.equals(entry.client.getFullName(), client.getFullName());
+            case RECENT:
+                return client.isPending()
+                        || !Objects.equals(entry.client.getFullName(), client.getFullName())
+                        || !Objects.equals(entry.client.getContacts(), client.getContacts());
+            default:
+                return false;
+        }
+    }
+
+    private int indexOf(Entry entry) {
+        return Collections.binarySearch(sorted, entry, comparator);
+    }
+
+    private void insert(Entry entry) {
+        int index = Collections.binarySearch(sorted, entry, comparator);
+        sorted.add(index < 0 ? -index - 1 : index, entry);
+    }
+
+    private static String sectionFor(String name) {
+        String trimmed = name != null ? name.trim() : "";
+        if (trimmed.isEmpty() || !Character.isLetter(trimmed.charAt(0))) {
+            return "#";
+        }
+        char first = Character.toUpperCase(trimmed.charAt(0));
+        return String.valueOf(first == 'Ё' ? 'Е' : first);
+    }
+
+    // Все порядки однозначны: при равенстве основного ключа строки упорядочены по id
+    private static Comparator<Entry> comparatorFor(Mode mode) {
+        switch (mode) {
+            case ID:
+                return (a, b) -> Integer.compare(a.client.getId(), b.client.getId());
+            case RECENT:
+                return (a, b) -> {
+                    int byChange = Long.compare(b.changedAt, a.changedAt);
+                    return byChange != 0 ? byChange : Integer.compare(b.client.getId(), a.client.getId());
+                };
+            default:
+                return (a, b) -> {
+                    int byName = a.key.compareTo(b.key);
+                    return byName != 0 ? byName : Integer.compare(a.client.getId(), b.client.getId());
+                };
+        }
+    }
+}
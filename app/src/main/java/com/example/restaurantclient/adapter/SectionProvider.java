@@ -0,0 +1,10 @@
+package com.example.restaurantclient.adapter;
+
+import com.example.restaurantclient.models.Client;
+
+ // Раздел (заголовок группы) для строки списка - см. ClientAdapter.setSectionProvider
+
+public interface SectionProvider {
+    // null - у строки нет раздела
+    String sectionOf(Client client);
+}
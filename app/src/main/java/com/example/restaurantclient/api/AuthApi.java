@@ -27,6 +27,8 @@ public interface AuthApi {
     );
 
     @GET("auth/check")
+    @Coalesce                                // LoginActivity и MainActivity проверяют сессию почти одновременно
+    @Hedge                                   // от проверки зависит первый экран - медленный ответ дублируется
     Call<AuthResponse> checkAuth();
 
     @GET("auth/logout")
@@ -1,29 +1,64 @@
 package com.example.restaurantclient.api;
 
 import com.example.restaurantclient.models.Client;
+import com.example.restaurantclient.models.ClientChanges;
+import com.example.restaurantclient.models.ClientMutation;
+import com.example.restaurantclient.models.MutationResult;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
+import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.Field;
 import retrofit2.http.FormUrlEncoded;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.Headers;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 import java.util.List;
 
  // использование Retrofit для взаимодействия с REST API
 
 public interface ClientApi {
+    // Версия таблицы клиентов в ответе GET clients - с нее продолжается getClientChanges
+    String SYNC_VERSION_HEADER = "X-Sync-Version";
+    // Поля, которые показывает список (item_client.xml) и которые нужны для сверки по id.
+    // Передается в параметре fields: сервер присылает только их; null - все поля
+    String LIST_FIELDS = "id,fullName,contacts";
 
-    @GET("clients")                          // HTTP GET метод к endpoint /clients
-    Call<List<Client>> getAllClients();
+    @GET("clients")                          // постраничная загрузка по id: afterId - последний id предыдущей страницы
+    @Coalesce                                // (0 - первая страница), limit - размер страницы; строки идут по возрастанию id.
+    @Hedge                                   // Одинаковые запросы объединяются, а ответ дольше обычного получает копию запроса
+    Call<List<Client>> getClientsPage(
+            @Query("afterId") int afterId,
+            @Query("limit") int limit,
+            @Query("fields") String fields
+    );
+
+
+    @GET("clients/changes")                 // изменения после версии since: новые/измененные клиенты и id удаленных
+    @Coalesce
+    @Headers("X-Priority: background")       // фоновая синхронизация уступает правкам и чтению для экрана
+    Call<ClientChanges> getClientChanges(@Query("since") long since, @Query("fields") String fields);
+
+
+    @GET("clients")
+    @Streaming                               // тело не буферизуется, JSON читается по мере загрузки (ClientStreamLoader)
+    @Headers({
+            "X-Streaming: true",             // не логировать тело ответа целиком
+            "X-Priority: background"         // полная перезагрузка в фоне (RequestScheduler)
+    })
+    Call<ResponseBody> streamAllClients(@Query("fields") String fields);
 
 
     @POST("clients")
     @FormUrlEncoded
-    Call<Void> createClient(
+    Call<Client> createClient(                // тело ответа - созданный клиент (может быть пустым)
             @Field("fullName") String fullName,   // Параметр в теле запроса
-            @Field("contacts") String contacts
+            @Field("contacts") String contacts,
+            @Header("Idempotency-Key") String idempotencyKey  // повтор с тем же ключом не создаст дубликат
     );
 
 
@@ -31,10 +66,27 @@ public interface ClientApi {
     Call<Void> updateClient(
             @Query("id") int id,
             @Query("fullName") String fullName,
-            @Query("contacts") String contacts
+            @Query("contacts") String contacts,
+            @Header("Idempotency-Key") String idempotencyKey
     );
 
 
     @DELETE("clients")
-    Call<Void> deleteClient(@Query("id") int id);
+    Call<Void> deleteClient(
+            @Query("id") int id,
+            @Header("Idempotency-Key") String idempotencyKey
+    );
+
+
+    @POST("clients/batch")                   // много операций в одном запросе, результат - по каждой операции
+    @Headers("X-Compress-Body: gzip")        // большое тело сжимается (GzipRequestInterceptor)
+    Call<List<MutationResult>> batchClients(@Body List<ClientMutation> mutations);
+
+
+    @POST("clients/batch")                   // импорт CSV (ClientImporter): те же пакеты, но фоном,
+    @Headers({                               // чтобы правки пользователя не ждали загрузки файла
+            "X-Compress-Body: gzip",
+            "X-Priority: background"
+    })
+    Call<List<MutationResult>> importClients(@Body List<ClientMutation> mutations);
 }
\ No newline at end of file
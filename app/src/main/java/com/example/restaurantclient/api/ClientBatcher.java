@@ -0,0 +1,145 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.models.ClientMutation;
+import com.example.restaurantclient.models.MutationResult;
+import android.os.Handler;
+import android.os.Looper;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+ // Собирает изменения клиентов, сделанные за короткое окно времени (или пока не наберется
+ // maxBatchSize штук), и отправляет их одним запросом POST clients/batch.
+ // Каждая операция получает свой результат по ref. Используется из главного потока.
+ // Сервер без clients/batch (404/405/501) - операции уходят по одной через DirectMutationSender, строго по очереди
+
+public class ClientBatcher implements ClientMutationSender {
+    public static final long DEFAULT_WINDOW_MS = 200;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    private final ClientApi clientApi;
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    private final DirectMutationSender direct;
+    private boolean batchUnsupported = false;
+    // Меняется в clear(): поштучная отправка пачки, начатая до очистки, не продолжается
+    private int generation = 0;
+
+    private List<ClientMutation> pending = new ArrayList<>();
+    private Map<String, ResultCallback> callbacks = new HashMap<>();
+
+    public ClientBatcher(ClientApi clientApi) {
+        this(clientApi, DEFAULT_WINDOW_MS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public ClientBatcher(ClientApi clientApi, long windowMs, int maxBatchSize) {
+        this.clientApi = clientApi;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.direct = new DirectMutationSender(clientApi);
+    }
+
+    @Override
+    public void send(ClientMutation mutation, ResultCallback callback) {
+        if (batchUnsupported) {
+            direct.send(mutation, callback);
+            return;
+        }
+        pending.add(mutation);
+        callbacks.put(mutation.getRef(), callback);
+
+        if (pending.size() >= maxBatchSize) {
+            flush();
+        } else if (pending.size() == 1) {
+            handler.postDelayed(flushRunnable, windowMs);
+        }
+    }
+
+    // Операции одной пачки сервер применяет по порядку; поштучные запросы - нет
+    @Override
+    public int getMaxInFlight() {
+        return batchUnsupported ? 1 : maxBatchSize;
+    }
+
+    @Override
+    public void clear() {
+        generation++;
+        handler.removeCallbacks(flushRunnable);
+        pending = new ArrayList<>();
+        callbacks = new HashMap<>();
+    }
+
+    // Отправляет накопленное немедленно, не дожидаясь конца окна
+    @Override
+    public void flush() {
+        handler.removeCallbacks(flushRunnable);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final List<ClientMutation> batch = pending;
+        final Map<String, ResultCallback> batchCallbacks = callbacks;
+        final int batchGeneration = generation;
+        pending = new ArrayList<>();
+        callbacks = new HashMap<>();
+
+        clientApi.batchClients(batch).enqueue(new Callback<List<MutationResult>>() {
+            @Override
+            public void onResponse(Call<List<MutationResult>> call, Response<List<MutationResult>> response) {
+                int code = response.code();
+                if (code == 404 || code == 405 || code == 501) {
+                    batchUnsupported = true;
+                    sendOneByOne(batch, batchCallbacks, 0, batchGeneration);
+                    return;
+                }
+                if (response.isSuccessful() && response.body() != null) {
+                    for (MutationResult result : response.body()) {
+                        ResultCallback callback = batchCallbacks.remove(result.getRef());
+                        if (callback != null) {
+                            callback.onResult(result);
+                        }
+                    }
+                    // Операции, о которых сервер ничего не сообщил, считаются неуспешными
+                    failAll(batchCallbacks, response.code(), "Нет результата операции в ответе сервера");
+                } else {
+                    failAll(batchCallbacks, response.code(), "Ошибка пакетного запроса: " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<List<MutationResult>> call, Throwable t) {
+                failAll(batchCallbacks, MutationResult.NETWORK_ERROR, t.getMessage());
+            }
+        });
+    }
+
+    // Следующая операция уходит после ответа на предыдущую - порядок тот же, что в пачке.
+    // После clear() остаток пачки не отправляется: следующий запрос ушел бы с чужой сессией
+    private void sendOneByOne(List<ClientMutation> batch, Map<String, ResultCallback> batchCallbacks,
+                              int index, int batchGeneration) {
+        if (index == batch.size() || generation != batchGeneration) {
+            return;
+        }
+        ClientMutation mutation = batch.get(index);
+        direct.send(mutation, result -> {
+            batchCallbacks.get(mutation.getRef()).onResult(result);
+            sendOneByOne(batch, batchCallbacks, index + 1, batchGeneration);
+        });
+    }
+
+    private static void failAll(Map<String, ResultCallback> callbacks, int status, String message) {
+        // Успешный код пакета не должен превращаться в успех отдельной операции
+        int itemStatus = status >= 200 && status < 300 ? 500 : status;
+        for (Map.Entry<String, ResultCallback> entry : callbacks.entrySet()) {
+            entry.getValue().onResult(new MutationResult(entry.getKey(), itemStatus, null, message));
+        }
+        callbacks.clear();
+    }
+}
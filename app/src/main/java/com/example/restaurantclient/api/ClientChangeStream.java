@@ -0,0 +1,341 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.RequestScheduler;
+import com.example.restaurantclient.models.Client;
+import com.example.restaurantclient.models.ClientChanges;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import android.os.Handler;
+import android.os.Looper;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+ // Подписка на изменения клиентов через Server-Sent Events: GET clients/events держится открытым,
+ // сервер присылает события по мере правок на других устройствах:
+ //   id: <версия>   event: upsert   data: {клиент}
+ //   id: <версия>   event: delete   data: {"id": N}
+ //   event: reset   - историю с запрошенной версии уже не восстановить
+ // id события - версия таблицы после него, та же, что в clients/changes.
+ // После обрыва соединение восстанавливается с Last-Event-ID (паузы растут до MAX_RETRY_MS),
+ // и сервер досылает пропущенное. Полная перезагрузка нужна, только если сервер ответил reset или 410.
+ // События, пришедшие подряд, отдаются одной пачкой ClientChanges - список перестраивается один раз.
+ // Сервер без clients/events (404 и т.п.) - подписка выключается, список сверяется как раньше
+
+public class ClientChangeStream {
+    public static final String PATH = "clients/events";
+    public static final long DEFAULT_RETRY_MS = 1_000;
+    public static final long MAX_RETRY_MS = 60_000;
+    // Сервер шлет комментарий-пинг чаще; дольше тишины - соединение считается оборванным
+    public static final long READ_TIMEOUT_MS = 90_000;
+
+    private final OkHttpClient client;
+    private final HttpUrl url;
+    private final TypeAdapter<Client> clientAdapter;
+    private final Gson gson;
+    private final Executor callbackExecutor;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "client-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Состояние ниже меняется под synchronized (this)
+    private Listener listener;
+    private int generation = 0;
+    private boolean running = false;
+    private boolean unsupported = false;
+    private long lastEventId = ClientRepository.NO_SYNC_VERSION;
+    private long retryMs = DEFAULT_RETRY_MS;
+    private long serverRetryMs = DEFAULT_RETRY_MS;
+    private Call call;
+    private ScheduledFuture<?> reconnect;
+    // Накопленные, но еще не отданные слушателю изменения
+    private ClientChanges pending;
+    private final Map<Integer, Client> pendingUpserts = new LinkedHashMap<>();
+    private final Set<Integer> pendingDeleted = new LinkedHashSet<>();
+
+    public interface Listener {
+        // Вызываются в главном потоке (или в callbackExecutor).
+        // changes.getVersion() - id последнего события пачки
+        void onChanges(ClientChanges changes);
+        // Пропущенные события не восстановить - нужна сверка через clients/changes или полная загрузка
+        void onResyncRequired();
+    }
+
+    public ClientChangeStream(OkHttpClient client, HttpUrl baseUrl, Gson gson) {
+        this(client, baseUrl, gson, new Handler(Looper.getMainLooper())::post);
+    }
+
+    public ClientChangeStream(OkHttpClient client, HttpUrl baseUrl, Gson gson, Executor callbackExecutor) {
+        // Общий пул соединений и интерцепторы, но ожидание ответа не ограничено обычным readTimeout
+        this.client = client.newBuilder().readTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS).build();
+        this.url = baseUrl.resolve(PATH);
+        this.gson = gson;
+        this.clientAdapter = gson.getAdapter(Client.class);
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    // Подписывается с версии since (версия локального списка). Уже открытая подписка с той же
+    // или более новой версии продолжает работать; отставшая (список перезагружен) - переоткрывается.
+    // NO_SYNC_VERSION (идет перезагрузка) закрывает подписку: события не к чему применить,
+    // и каждое вызывало бы новую перезагрузку. Она откроется, когда версия снова станет известна
+    public synchronized void start(long since, Listener listener) {
+        this.listener = listener;
+        if (since == ClientRepository.NO_SYNC_VERSION) {
+            stopLocked();
+            return;
+        }
+        if (unsupported || (running && lastEventId >= since)) {
+            return;
+        }
+        stopLocked();
+        running = true;
+        lastEventId = since;
+        retryMs = DEFAULT_RETRY_MS;
+        int current = generation;
+        executor.execute(() -> connect(current));
+    }
+
+    public synchronized void stop() {
+        stopLocked();
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    private void stopLocked() {
+        generation++;
+        running = false;
+        if (call != null) {
+            call.cancel();
+            call = null;
+        }
+        if (reconnect != null) {
+            reconnect.cancel(false);
+            reconnect = null;
+        }
+        pending = null;
+        pendingUpserts.clear();
+        pendingDeleted.clear();
+    }
+
+    private void connect(int expectedGeneration) {
+        Call current;
+        synchronized (this) {
+            if (generation != expectedGeneration) {
+                return;
+            }
+            Request request = new Request.Builder()
+                    .url(url.newBuilder().setQueryParameter("since", String.valueOf(lastEventId)).build())
+                    .header("Accept", "text/event-stream")
+                    .header("Last-Event-ID", String.valueOf(lastEventId))
+                    // Бесконечный ответ не логируется целиком, не кэшируется и не мешает запросам экрана
+                    .header("X-Streaming", "true")
+                    .header(RequestScheduler.HEADER, RequestScheduler.Lane.BACKGROUND.headerValue())
+                    .cacheControl(new CacheControl.Builder().noStore().build())
+                    .build();
+            current = client.newCall(request);
+            call = current;
+        }
+
+        try (Response response = current.execute()) {
+            int code = response.code();
+            if (code == 410) {
+                resyncRequired(expectedGeneration);
+                return;
+            }
+            if (code == 401 || code == 403 || code == 404 || code == 405 || code == 501) {
+                synchronized (this) {
+                    if (generation == expectedGeneration) {
+                        unsupported = true;
+                        stopLocked();
+                    }
+                }
+                return;
+            }
+            if (response.isSuccessful() && response.body() != null) {
+                read(response.body(), expectedGeneration);
+            }
+        } catch (IOException e) {
+            // Обрыв или таймаут - переподключение ниже
+        }
+        scheduleReconnect(expectedGeneration);
+    }
+
+    // Разбор потока text/event-stream: поля события до пустой строки, строки с ':' - комментарии
+    private void read(ResponseBody body, int expectedGeneration) throws IOException {
+        BufferedSource source = body.source();
+        String id = null;
+        String event = null;
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                if (!dispatch(id, event, data.toString(), expectedGeneration)) {
+                    return;
+                }
+                id = null;
+                event = null;
+                data.setLength(0);
+                continue;
+            }
+            if (line.startsWith(":")) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            switch (field) {
+                case "id":
+                    id = value;
+                    break;
+                case "event":
+                    event = value;
+                    break;
+                case "data":
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                    break;
+                case "retry":
+                    try {
+                        long retry = Long.parseLong(value);
+                        synchronized (this) {
+                            serverRetryMs = Math.max(DEFAULT_RETRY_MS, retry);
+                        }
+                    } catch (NumberFormatException ignored) {
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    // false - подписка остановлена, читать дальше не нужно
+    private boolean dispatch(String id, String event, String data, int expectedGeneration) {
+        if ("reset".equals(event)) {
+            resyncRequired(expectedGeneration);
+            return false;
+        }
+        if (id == null || data.isEmpty() || !("upsert".equals(event) || "delete".equals(event))) {
+            return true;
+        }
+        long version;
+        Client upsert = null;
+        int deletedId = 0;
+        try {
+            version = Long.parseLong(id);
+            if ("upsert".equals(event)) {
+                upsert = clientAdapter.fromJson(data);
+            } else {
+                deletedId = gson.fromJson(data, JsonObject.class).get("id").getAsInt();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Непонятное событие пропускается: если оно важно, расхождение поправит следующая сверка
+            return true;
+        }
+
+        boolean post;
+        synchronized (this) {
+            if (generation != expectedGeneration) {
+                return false;
+            }
+            lastEventId = version;
+            // Соединение живое - следующий обрыв снова начнет с короткой паузы
+            retryMs = serverRetryMs;
+            // Последнее событие по id побеждает: удаление отменяет правку и наоборот
+            if (upsert != null) {
+                pendingDeleted.remove(upsert.getId());
+                pendingUpserts.put(upsert.getId(), upsert);
+            } else {
+                pendingUpserts.remove(deletedId);
+                pendingDeleted.add(deletedId);
+            }
+            post = pending == null;
+            if (post) {
+                pending = new ClientChanges();
+            }
+            pending.setVersion(version);
+        }
+        if (post) {
+            callbackExecutor.execute(() -> deliver(expectedGeneration));
+        }
+        return true;
+    }
+
+    private void deliver(int expectedGeneration) {
+        ClientChanges changes;
+        Listener current;
+        synchronized (this) {
+            if (generation != expectedGeneration || pending == null) {
+                return;
+            }
+            changes = pending;
+            pending = null;
+            changes.setUpserts(new ArrayList<>(pendingUpserts.values()));
+            changes.setDeleted(new ArrayList<>(pendingDeleted));
+            pendingUpserts.clear();
+            pendingDeleted.clear();
+            current = listener;
+        }
+        if (current != null) {
+            current.onChanges(changes);
+        }
+    }
+
+    private void resyncRequired(int expectedGeneration) {
+        synchronized (this) {
+            if (generation != expectedGeneration) {
+                return;
+            }
+            stopLocked();
+        }
+        callbackExecutor.execute(() -> {
+            Listener current;
+            synchronized (this) {
+                current = listener;
+            }
+            if (current != null) {
+                current.onResyncRequired();
+            }
+        });
+    }
+
+    // Пауза растет вдвое до MAX_RETRY_MS; случайная доля не дает всем устройствам
+    // переподключиться одновременно после перезапуска сервера
+    private synchronized void scheduleReconnect(int expectedGeneration) {
+        if (generation != expectedGeneration) {
+            return;
+        }
+        call = null;
+        long delay = retryMs / 2 + ThreadLocalRandom.current().nextLong(retryMs / 2 + 1);
+        retryMs = Math.min(MAX_RETRY_MS, retryMs * 2);
+        reconnect = executor.schedule(() -> connect(expectedGeneration), delay, TimeUnit.MILLISECONDS);
+    }
+}
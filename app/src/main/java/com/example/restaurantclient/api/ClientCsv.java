@@ -0,0 +1,264 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.models.Client;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+
+ // Формат CSV для импорта и экспорта клиентов (RFC 4180).
+ // Чтение и запись идут по одной записи: файл целиком в памяти не держится.
+ // Разделитель - запятая или точка с запятой (так сохраняет Excel с русской локалью):
+ // определяется по первому разделителю вне кавычек. UTF-8 BOM в начале файла пропускается
+
+public final class ClientCsv {
+    public static final String MIME_TYPE = "text/csv";
+    public static final String COLUMN_ID = "id";
+    public static final String COLUMN_FULL_NAME = "fullName";
+    public static final String COLUMN_CONTACTS = "contacts";
+    // Поле длиннее - почти наверняка незакрытая кавычка, которая "съела" остаток файла
+    public static final int MAX_FIELD_LENGTH = 4096;
+    private static final char BOM = '\uFEFF';
+
+    private ClientCsv() {}
+
+    // Ошибка формата файла (а не отдельной строки): дальше читать нельзя
+    public static class FormatException extends IOException {
+        public final int line;
+
+        FormatException(int line, String message) {
+            super("Строка " + line + ": " + message);
+            this.line = line;
+        }
+    }
+
+    public static class Reader {
+        private static final int EOF = -1;
+
+        private final java.io.Reader in;
+        private final StringBuilder field = new StringBuilder();
+        private char delimiter = 0;
+        private int pushedBack = -2;
+        private int line = 1;
+        private int recordLine = 1;
+        private boolean started = false;
+
+        // in лучше передавать буферизованным - чтение идет по символу
+        public Reader(java.io.Reader in) {
+            this.in = in;
+        }
+
+        // Номер строки файла, с которой началась последняя прочитанная запись
+        public int getLine() {
+            return recordLine;
+        }
+
+        // Следующая непустая запись или null в конце файла
+        public String[] next() throws IOException {
+            if (!started) {
+                started = true;
+                int first = read();
+                if (first != BOM) {
+                    unread(first);
+                }
+            }
+            while (true) {
+                int c = read();
+                if (c == EOF) {
+                    return null;
+                }
+                if (c == '\r' || c == '\n') {
+                    endOfLine(c);
+                    continue;
+                }
+                unread(c);
+                return readRecord();
+            }
+        }
+
+        private String[] readRecord() throws IOException {
+            recordLine = line;
+            List<String> fields = new ArrayList<>(3);
+            field.setLength(0);
+            boolean quoted = false;
+            boolean afterQuote = false;
+            while (true) {
+                int c = read();
+                if (quoted) {
+                    if (c == EOF) {
+                        throw new FormatException(recordLine, "не закрыта кавычка");
+                    }
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            append('"');
+                        } else {
+                            unread(next);
+                            quoted = false;
+                            afterQuote = true;
+                        }
+                    } else {
+                        if (c == '\n' || (c == '\r' && peekIsNot('\n'))) {
+                            line++;
+                        }
+                        append((char) c);
+                    }
+                } else if (c == EOF || c == '\r' || c == '\n') {
+                    fields.add(field.toString());
+                    if (c != EOF) {
+                        endOfLine(c);
+                    }
+                    return fields.toArray(new String[0]);
+                } else if (isDelimiter(c)) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    afterQuote = false;
+                } else if (c == '"' && field.length() == 0 && !afterQuote) {
+                    quoted = true;
+                } else if (afterQuote) {
+                    throw new FormatException(recordLine, "лишние символы после закрывающей кавычки");
+                } else {
+                    append((char) c);
+                }
+            }
+        }
+
+        private boolean isDelimiter(int c) {
+            if (delimiter == 0 && (c == ',' || c == ';')) {
+                delimiter = (char) c;
+            }
+            return c == delimiter;
+        }
+
+        private void append(char c) throws FormatException {
+            if (field.length() == MAX_FIELD_LENGTH) {
+                throw new FormatException(recordLine, "слишком длинное поле");
+            }
+            field.append(c);
+        }
+
+        // \r\n, \n и одиночный \r - один перевод строки
+        private void endOfLine(int c) throws IOException {
+            line++;
+            if (c == '\r') {
+                int next = read();
+                if (next != '\n') {
+                    unread(next);
+                }
+            }
+        }
+
+        private boolean peekIsNot(char expected) throws IOException {
+            int next = read();
+            unread(next);
+            return next != expected;
+        }
+
+        private int read() throws IOException {
+            if (pushedBack != -2) {
+                int c = pushedBack;
+                pushedBack = -2;
+                return c;
+            }
+            return in.read();
+        }
+
+        private void unread(int c) {
+            pushedBack = c;
+        }
+    }
+
+    // Какие колонки файла - ФИО и контакты. Файл без заголовка читается как "ФИО, контакты"
+    public static class Columns {
+        public static final Columns DEFAULT = new Columns(0, 1);
+
+        public final int fullName;
+        public final int contacts;
+
+        Columns(int fullName, int contacts) {
+            this.fullName = fullName;
+            this.contacts = contacts;
+        }
+
+        // null - первая запись не заголовок, а данные
+        public static Columns fromHeader(String[] record) {
+            int fullName = -1;
+            int contacts = -1;
+            for (int i = 0; i < record.length; i++) {
+                String name = record[i].trim().toLowerCase(Locale.ROOT);
+                if (name.equals("fullname") || name.equals("фио")) {
+                    fullName = i;
+                } else if (name.equals("contacts") || name.equals("контакты")) {
+                    contacts = i;
+                }
+            }
+            return fullName < 0 ? null : new Columns(fullName, contacts);
+        }
+
+        public String fullName(String[] record) {
+            return value(record, fullName);
+        }
+
+        public String contacts(String[] record) {
+            return value(record, contacts);
+        }
+
+        private static String value(String[] record, int index) {
+            return index >= 0 && index < record.length ? record[index].trim() : "";
+        }
+    }
+
+    public static class Writer {
+        private final Appendable out;
+
+        // out лучше передавать буферизованным; закрывает его вызывающий
+        public Writer(Appendable out) {
+            this.out = out;
+        }
+
+        // BOM нужен Excel, чтобы открыть UTF-8 с кириллицей без выбора кодировки
+        public void writeHeader() throws IOException {
+            out.append(BOM);
+            writeRecord(COLUMN_ID, COLUMN_FULL_NAME, COLUMN_CONTACTS);
+        }
+
+        public void write(Client client) throws IOException {
+            writeRecord(String.valueOf(client.getId()), client.getFullName(), client.getContacts());
+        }
+
+        private void writeRecord(String... fields) throws IOException {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                writeField(fields[i]);
+            }
+            out.append("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == ';' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                out.append(value);
+                return;
+            }
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    out.append('"');
+                }
+                out.append(c);
+            }
+            out.append('"');
+        }
+    }
+}
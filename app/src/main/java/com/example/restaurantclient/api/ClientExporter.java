@@ -0,0 +1,144 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.models.Client;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import android.os.Handler;
+import android.os.Looper;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+ // Экспорт клиентов в CSV: полный список читается потоком (GET clients, @Streaming) и каждая
+ // запись сразу пишется в файл, как в ClientStreamLoader - ни ответ, ни файл целиком в памяти не держатся.
+ // Скорость чтения из сети задает запись в файл: медленный диск просто замедляет загрузку.
+ // Экспорт, как и импорт, живет дольше экрана: при повороте он не прерывается (отмена оставила бы
+ // обрезанный файл), а итог получает слушатель нового экрана (setListener)
+
+public class ClientExporter {
+    private final ClientApi clientApi;
+    private final TypeAdapter<Client> clientAdapter;
+    private final Executor callbackExecutor;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private volatile Call<ResponseBody> inFlight;
+    private volatile Listener listener;
+    // Итог экспорта, завершившегося без слушателя, - для следующего setListener
+    private Outcome unclaimedOutcome;
+
+    public interface Listener {
+        // Вызываются в главном потоке (или в callbackExecutor)
+        void onFinished(int exported);
+        void onError(String message);
+    }
+
+    private interface Outcome {
+        void deliverTo(Listener listener);
+    }
+
+    public ClientExporter(ClientApi clientApi, Gson gson) {
+        this(clientApi, gson, new Handler(Looper.getMainLooper())::post);
+    }
+
+    public ClientExporter(ClientApi clientApi, Gson gson, Executor callbackExecutor) {
+        this.clientApi = clientApi;
+        this.clientAdapter = gson.getAdapter(Client.class);
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    // Поток закрывается по окончании экспорта. Предыдущий незавершенный экспорт отменяется
+    public void exportTo(OutputStream out, Listener listener) {
+        cancel();
+        this.listener = listener;
+        Call<ResponseBody> call = clientApi.streamAllClients(ClientApi.LIST_FIELDS);
+        inFlight = call;
+        executor.execute(() -> write(call, out));
+    }
+
+    public boolean isRunning() {
+        return inFlight != null;
+    }
+
+    // Экран пересоздан - итог придет новому слушателю; null - отвязать уничтоженный экран.
+    // Если экспорт закончился, пока слушателя не было, итог отдается сразу, в потоке вызова
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        if (listener != null) {
+            Outcome outcome = claimOutcome();
+            if (outcome != null) {
+                outcome.deliverTo(listener);
+            }
+        }
+    }
+
+    private synchronized Outcome claimOutcome() {
+        Outcome outcome = unclaimedOutcome;
+        unclaimedOutcome = null;
+        return outcome;
+    }
+
+    private synchronized void keepOutcome(Outcome outcome) {
+        unclaimedOutcome = outcome;
+    }
+
+    // Записанная часть файла остается как есть
+    public void cancel() {
+        claimOutcome();
+        Call<ResponseBody> call = inFlight;
+        inFlight = null;
+        if (call != null) {
+            call.cancel();
+        }
+    }
+
+    private void write(Call<ResponseBody> call, OutputStream out) {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            Response<ResponseBody> response = call.execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                post(call, listener -> listener.onError("Ошибка загрузки клиентов: " + response.code()));
+                return;
+            }
+            ClientCsv.Writer csv = new ClientCsv.Writer(writer);
+            csv.writeHeader();
+            int exported = 0;
+            try (ResponseBody body = response.body(); JsonReader reader = new JsonReader(body.charStream())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    csv.write(clientAdapter.read(reader));
+                    exported++;
+                }
+                reader.endArray();
+            }
+            writer.flush();
+            int total = exported;
+            post(call, listener -> listener.onFinished(total));
+        } catch (IOException | RuntimeException e) {
+            post(call, listener -> listener.onError("Ошибка экспорта: " + e.getMessage()));
+        }
+    }
+
+    private void post(Call<ResponseBody> call, Outcome outcome) {
+        callbackExecutor.execute(() -> {
+            if (call == inFlight) {
+                inFlight = null;
+                Listener current = listener;
+                if (current != null) {
+                    outcome.deliverTo(current);
+                } else {
+                    keepOutcome(outcome);
+                }
+            }
+        });
+    }
+}
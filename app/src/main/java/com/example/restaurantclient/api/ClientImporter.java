@@ -0,0 +1,360 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.models.ClientMutation;
+import com.example.restaurantclient.models.MutationResult;
+import android.os.Handler;
+import android.os.Looper;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+
+ // Импорт клиентов из CSV: файл читается потоком в фоновом потоке, строки уходят на сервер
+ // пакетами по chunkSize через POST clients/batch (ClientApi.importClients).
+ // Одновременно в полете не больше maxInFlight пакетов: пока сервер их не принял, файл дальше
+ // не читается, поэтому память не зависит от размера файла.
+ // Ошибки отдельных строк (пустое ФИО, отказ сервера по операции) не останавливают импорт -
+ // они считаются, первые MAX_REPORTED_ERRORS сохраняются с номером строки файла.
+ // Импорт прерывают ошибка формата файла, сети или пакета целиком и cancel()
+
+public class ClientImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ClientApi clientApi;
+    private final int chunkSize;
+    private final int maxInFlight;
+    private final Executor callbackExecutor;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private volatile Job job;
+    // Итог импорта, завершившегося без слушателя (экран пересоздавался), - для следующего setListener
+    private Result unclaimedResult;
+
+    public interface Listener {
+        // Вызываются в главном потоке (или в callbackExecutor)
+        void onProgress(int rowsRead, int imported, int failed);
+        void onFinished(Result result);
+    }
+
+    public static class RowError {
+        public final int line;
+        public final String message;
+
+        RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Строка " + line + ": " + message;
+        }
+    }
+
+    public static class Result {
+        public final int rowsRead;
+        public final int imported;
+        public final int failed;
+        // Первые MAX_REPORTED_ERRORS ошибок строк
+        public final List<RowError> errors;
+        // Почему импорт остановлен до конца файла; null - файл прочитан целиком
+        public final String abortMessage;
+
+        Result(int rowsRead, int imported, int failed, List<RowError> errors, String abortMessage) {
+            this.rowsRead = rowsRead;
+            this.imported = imported;
+            this.failed = failed;
+            this.errors = errors;
+            this.abortMessage = abortMessage;
+        }
+    }
+
+    public ClientImporter(ClientApi clientApi) {
+        this(clientApi, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_IN_FLIGHT, new Handler(Looper.getMainLooper())::post);
+    }
+
+    public ClientImporter(ClientApi clientApi, int chunkSize, int maxInFlight, Executor callbackExecutor) {
+        this.clientApi = clientApi;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    // Поток закрывается по окончании импорта. Предыдущий незавершенный импорт отменяется
+    public void importFrom(InputStream in, Listener listener) {
+        cancel();
+        Job current = new Job(listener);
+        job = current;
+        executor.execute(() -> current.run(in));
+    }
+
+    public boolean isRunning() {
+        return job != null;
+    }
+
+    // Экран пересоздан - результат придет новому слушателю; null - отвязать уничтоженный экран.
+    // Если импорт закончился, пока слушателя не было, итог отдается сразу, в потоке вызова
+    public void setListener(Listener listener) {
+        Job current = job;
+        if (current != null) {
+            current.listener = listener;
+        }
+        if (listener != null) {
+            Result result = claimResult();
+            if (result != null) {
+                listener.onFinished(result);
+            }
+        }
+    }
+
+    private synchronized Result claimResult() {
+        Result result = unclaimedResult;
+        unclaimedResult = null;
+        return result;
+    }
+
+    private synchronized void keepResult(Result result) {
+        unclaimedResult = result;
+    }
+
+    // Уже принятые сервером пакеты остаются, следующие не отправляются; неполученный итог забывается
+    public void cancel() {
+        claimResult();
+        Job current = job;
+        job = null;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private final class Job {
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        private final Set<Call<?>> calls = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        private volatile Listener listener;
+        private volatile boolean cancelled;
+        // Счетчики ниже меняются под synchronized (this): ответы пакетов приходят из других потоков
+        private int rowsRead;
+        private int imported;
+        private int failed;
+        private final List<RowError> errors = new ArrayList<>();
+        private String abortMessage;
+        // Собираемый пакет и строки файла его операций - только в потоке чтения
+        private List<ClientMutation> chunk = new ArrayList<>();
+        private Map<String, Integer> lines = new HashMap<>();
+
+        Job(Listener listener) {
+            this.listener = listener;
+        }
+
+        void run(InputStream in) {
+            String formatError = null;
+            try {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                    read(new ClientCsv.Reader(reader));
+                } catch (ClientCsv.FormatException e) {
+                    // Строки до ошибки уже проверены - они отправляются, дальше файл не читается
+                    formatError = e.getMessage();
+                } catch (IOException e) {
+                    abort("Ошибка чтения файла: " + e.getMessage());
+                }
+                if (!chunk.isEmpty()) {
+                    send();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+            if (formatError != null) {
+                abort(formatError);
+            }
+            awaitAll();
+            finish();
+        }
+
+        private void read(ClientCsv.Reader csv) throws IOException, InterruptedException {
+            String[] record = csv.next();
+            ClientCsv.Columns columns = record == null ? null : ClientCsv.Columns.fromHeader(record);
+            if (columns != null) {
+                record = csv.next();
+            } else {
+                columns = ClientCsv.Columns.DEFAULT;
+            }
+
+            while (record != null && !isStopped()) {
+                String fullName = columns.fullName(record);
+                synchronized (this) {
+                    rowsRead++;
+                }
+                if (fullName.isEmpty()) {
+                    rowFailed(csv.getLine(), "не указано ФИО");
+                } else {
+                    ClientMutation mutation = ClientMutation.create(fullName, columns.contacts(record));
+                    chunk.add(mutation);
+                    lines.put(mutation.getRef(), csv.getLine());
+                    if (chunk.size() == chunkSize) {
+                        send();
+                    }
+                }
+                record = csv.next();
+            }
+        }
+
+        // Ждет свободного места среди пакетов в полете: так чтение файла держится вровень с сервером
+        private void send() throws InterruptedException {
+            List<ClientMutation> chunk = this.chunk;
+            Map<String, Integer> lines = this.lines;
+            this.chunk = new ArrayList<>(chunkSize);
+            this.lines = new HashMap<>();
+            while (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                if (isStopped()) {
+                    return;
+                }
+            }
+            if (isStopped()) {
+                inFlight.release();
+                return;
+            }
+            Call<List<MutationResult>> call = clientApi.importClients(chunk);
+            calls.add(call);
+            call.enqueue(new Callback<List<MutationResult>>() {
+                @Override
+                public void onResponse(Call<List<MutationResult>> call, Response<List<MutationResult>> response) {
+                    if (response.isSuccessful() && response.body() != null) {
+                        for (MutationResult result : response.body()) {
+                            Integer line = lines.remove(result.getRef());
+                            if (line == null) {
+                                continue;
+                            }
+                            if (result.isSuccess()) {
+                                synchronized (Job.this) {
+                                    imported++;
+                                }
+                            } else {
+                                rowFailed(line, result.getMessage() != null
+                                        ? result.getMessage() : "ошибка сервера " + result.getStatus());
+                            }
+                        }
+                        // Строки, о которых сервер ничего не сообщил, считаются неуспешными
+                        for (Integer line : lines.values()) {
+                            rowFailed(line, "нет результата в ответе сервера");
+                        }
+                    } else {
+                        chunkFailed(lines, "Ошибка пакетного запроса: " + response.code());
+                    }
+                    completed(call);
+                }
+
+                @Override
+                public void onFailure(Call<List<MutationResult>> call, Throwable t) {
+                    chunkFailed(lines, "Ошибка сети: " + t.getMessage());
+                    completed(call);
+                }
+            });
+        }
+
+        private void completed(Call<?> call) {
+            calls.remove(call);
+            inFlight.release();
+            int read;
+            int done;
+            int bad;
+            synchronized (this) {
+                read = rowsRead;
+                done = imported;
+                bad = failed;
+            }
+            callbackExecutor.execute(() -> {
+                Listener current = listener;
+                if (!cancelled && current != null) {
+                    current.onProgress(read, done, bad);
+                }
+            });
+        }
+
+        private void chunkFailed(Map<String, Integer> lines, String message) {
+            if (!cancelled) {
+                for (Integer line : lines.values()) {
+                    rowFailed(line, message);
+                }
+                abort(message);
+            }
+        }
+
+        private synchronized void rowFailed(int line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+
+        private synchronized void abort(String message) {
+            if (abortMessage == null) {
+                abortMessage = message;
+            }
+        }
+
+        private synchronized boolean isStopped() {
+            return cancelled || abortMessage != null;
+        }
+
+        private void awaitAll() {
+            try {
+                while (!inFlight.tryAcquire(maxInFlight, 100, TimeUnit.MILLISECONDS)) {
+                    if (cancelled) {
+                        return;
+                    }
+                }
+                inFlight.release(maxInFlight);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void finish() {
+            Result result;
+            synchronized (this) {
+                result = new Result(rowsRead, imported, failed, new ArrayList<>(errors), abortMessage);
+            }
+            callbackExecutor.execute(() -> {
+                if (job == this) {
+                    job = null;
+                }
+                Listener current = listener;
+                if (cancelled) {
+                    return;
+                }
+                if (current != null) {
+                    current.onFinished(result);
+                } else {
+                    keepResult(result);
+                }
+            });
+        }
+
+        void cancel() {
+            cancelled = true;
+            for (Call<?> call : calls) {
+                call.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.models.ClientMutation;
+import com.example.restaurantclient.models.MutationResult;
+
+ // Способ доставки изменений клиентов на сервер: по одному запросу на операцию
+ // (DirectMutationSender) или пачками (ClientBatcher)
+
+public interface ClientMutationSender {
+
+    interface ResultCallback {
+        // Вызывается в главном потоке
+        void onResult(MutationResult result);
+    }
+
+    void send(ClientMutation mutation, ResultCallback callback);
+
+    // Сколько операций подряд можно передать в send(), не дожидаясь результатов, так, чтобы сервер
+    // применил их в том же порядке. 1 - каждая операция идет отдельным запросом и может обогнать предыдущую
+    default int getMaxInFlight() {
+        return 1;
+    }
+
+    // Переданные операции отправляются сразу, без ожидания окна накопления
+    default void flush() {
+    }
+
+    // Выход из аккаунта (MutationOutbox.clear): операции, еще не ушедшие на сервер, не отправляются
+    // уже с сессией следующего пользователя. Их колбэки не вызываются
+    default void clear() {
+    }
+}
@@ -0,0 +1,468 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.models.Client;
+import com.example.restaurantclient.models.ClientChanges;
+import com.example.restaurantclient.models.ClientMutation;
+import com.example.restaurantclient.models.MutationResult;
+import okhttp3.Headers;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+ // Локальный список клиентов с оптимистичными изменениями:
+ // create/update/delete применяются к списку сразу (строка помечается pending),
+ // ответ сервера подтверждает или откатывает изменение.
+ // Доставку на сервер выполняет ClientMutationSender - поштучно или пачками.
+ // Повторная загрузка с сервера запрашивается только при конфликте.
+ // Подтвержденное состояние сохраняется в ClientStore: при старте сразу показывается
+ // последний известный список, а страницы с сервера сверяют его построчно (stale-while-revalidate).
+ // Снимок пишется не на каждое изменение, а в точках сверки: первая и последняя страница,
+ // примененная дельта, ответ на последнюю отправленную правку.
+ // Версия синхронизации приходит с первой страницей, и дальше сервер присылает только изменения
+ // с этой версии (applyChanges) - остальные страницы догружаются при прокрутке, а не ради версии.
+ // На диск версия пишется только для полностью загруженного списка: при следующем запуске
+ // такой список сверяется одним коротким ответом clients/changes.
+ // Пока экран открыт, те же изменения приходят сразу push-событиями (ClientChangeStream).
+ // Один экземпляр на процесс, как и журнал изменений: ответы на правки, отправленные до поворота экрана,
+ // применяются к тому же списку, а новый экран подключается через setListener.
+ // Все методы вызываются из главного потока (колбэки Retrofit приходят туда же)
+
+public class ClientRepository {
+    public static final long NO_SYNC_VERSION = -1;
+
+    private final ClientMutationSender sender;
+    private final Store store;
+    private final List<Client> clients = new ArrayList<>();
+    private Listener listener;
+    // Список с диска уже прочитан (или читается) - повторно при новом экране не читается
+    private boolean restoreStarted = false;
+    private boolean restored = false;
+    private Runnable onRestored;
+    // id строк из локального хранилища, которые сервер еще не подтвердил в текущей сверке
+    private final Set<Integer> staleIds = new HashSet<>();
+    private boolean receivedFromServer = false;
+    // Версия, до которой загруженная часть списка совпадает с сервером; NO_SYNC_VERSION - неизвестна
+    private long syncVersion = NO_SYNC_VERSION;
+    // Загружены все страницы (или список с диска, сохраненный целиком) - в списке есть вся таблица
+    private boolean complete = false;
+    // Правки, отправленные, но еще без ответа. Пока они есть, на диск пишется NO_SYNC_VERSION:
+    // в снимке нет ни новой, ни прежней версии таких строк, и после перезапуска нужна полная сверка
+    private int pendingMutations = 0;
+    // Серверные версии строк, которые не перезаписаны из-за неподтвержденной локальной правки.
+    // Если правка не пройдет, строка откатывается к ним, а не к версии до правки: версия синхронизации
+    // уже ушла вперед, и те же изменения больше не придут
+    private final Map<Integer, Client> skippedServerRows = new HashMap<>();
+    // Временные id для созданных, но еще не подтвержденных клиентов (отрицательные, чтобы не пересекаться с серверными)
+    private int nextTempId = -1;
+
+    public interface Listener {
+        // clients - новый неизменяемый снимок списка, его можно отдавать в ClientAdapter.submitList
+        void onClientsChanged(List<Client> clients);
+        // Локальные данные разошлись с сервером - нужно перезагрузить список
+        void onResyncRequired();
+    }
+
+    public interface MutationCallback {
+        void onConfirmed();
+        void onFailed(String message);
+    }
+
+    // Хранилище подтвержденного списка: ClientStore в приложении, подделка в JVM-тестах
+    public interface Store {
+        // Колбэк вызывается в главном потоке
+        void load(ClientStore.LoadCallback callback);
+        void save(List<Client> clients, long syncVersion);
+        void clear();
+    }
+
+    public ClientRepository(ClientMutationSender sender, Store store) {
+        this.sender = sender;
+        this.store = store;
+    }
+
+    // Экран, который показывает список; сразу получает текущий снимок. null - экран уничтожен
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        if (listener != null && !clients.isEmpty()) {
+            listener.onClientsChanged(new ArrayList<>(clients));
+        }
+    }
+
+    // Показывает сохраненный на диске список, если сервер еще не успел ответить.
+    // onRestored вызывается в любом случае - после него известна версия синхронизации.
+    // Диск читается один раз за процесс; если чтение еще идет, колбэк получит только последний вызвавший
+    public void restoreFromStore(Runnable onRestored) {
+        if (restored) {
+            onRestored.run();
+            return;
+        }
+        this.onRestored = onRestored;
+        if (restoreStarted) {
+            return;
+        }
+        restoreStarted = true;
+        store.load((cached, cachedVersion) -> {
+            restored = true;
+            if (!receivedFromServer && !cached.isEmpty()) {
+                clients.addAll(cached);
+                syncVersion = cachedVersion;
+                complete = cachedVersion != NO_SYNC_VERSION;
+                publish();
+            }
+            Runnable callback = this.onRestored;
+            this.onRestored = null;
+            if (callback != null) {
+                callback.run();
+            }
+        });
+    }
+
+    public long getSyncVersion() {
+        return syncVersion;
+    }
+
+    // false - часть таблицы еще не загружена, clients/changes не заменяет постраничную загрузку
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // Версия из заголовка ответа полной загрузки; NO_SYNC_VERSION, если сервер ее не прислал
+    public static long syncVersionOf(Headers headers) {
+        String value = headers.get(ClientApi.SYNC_VERSION_HEADER);
+        if (value == null) {
+            return NO_SYNC_VERSION;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return NO_SYNC_VERSION;
+        }
+    }
+
+    public List<Client> getClients() {
+        return new ArrayList<>(clients);
+    }
+
+    // При выходе из аккаунта локальная копия списка удаляется - и на диске, и в памяти
+    public void clearLocalData() {
+        clients.clear();
+        staleIds.clear();
+        skippedServerRows.clear();
+        receivedFromServer = false;
+        syncVersion = NO_SYNC_VERSION;
+        complete = false;
+        // Журнал очищается вместе со списком - ответов на отправленные правки уже не будет
+        pendingMutations = 0;
+        store.clear();
+    }
+
+    // Страница от ClientPagingSource. Первая страница начинает сверку: все текущие строки
+    // считаются устаревшими, пока сервер их не вернет. Строки из страницы обновляются на месте,
+    // новые добавляются в конец; после последней страницы неподтвержденные строки удаляются -
+    // страницы идут по id (ClientPagingSource), поэтому строку, которую сервер не вернул, он удалил.
+    // Так в адаптер уходят только реальные отличия, а сохраненный хвост списка виден до своей сверки
+    public void applyPage(List<Client> page, boolean first, boolean last) {
+        applyPage(page, first, last, NO_SYNC_VERSION);
+    }
+
+    // pageSyncVersion - версия данных из ответа на первую страницу (заголовок X-Sync-Version):
+    // с нее сразу можно запрашивать изменения, не дожидаясь остальных страниц
+    public void applyPage(List<Client> page, boolean first, boolean last, long pageSyncVersion) {
+        receivedFromServer = true;
+        if (first) {
+            syncVersion = pageSyncVersion;
+            complete = false;
+            staleIds.clear();
+            for (Client client : clients) {
+                if (!client.isPending()) {
+                    staleIds.add(client.getId());
+                }
+            }
+        }
+
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < clients.size(); i++) {
+            positions.put(clients.get(i).getId(), i);
+        }
+        for (Client client : page) {
+            Integer position = positions.get(client.getId());
+            if (position == null) {
+                positions.put(client.getId(), clients.size());
+                clients.add(client);
+            } else if (!clients.get(position).isPending()) {
+                clients.set(position, client);
+            } else {
+                skippedServerRows.put(client.getId(), client);
+            }
+            staleIds.remove(client.getId());
+        }
+
+        if (last && !staleIds.isEmpty()) {
+            Iterator<Client> iterator = clients.iterator();
+            while (iterator.hasNext()) {
+                if (staleIds.contains(iterator.next().getId())) {
+                    iterator.remove();
+                }
+            }
+            staleIds.clear();
+        }
+        if (last) {
+            complete = true;
+        }
+        publish();
+        // Промежуточные страницы на диск не пишутся: до последней страницы список все равно без версии
+        if (first || last) {
+            persist();
+        }
+    }
+
+    // Изменения с версии getSyncVersion(): upserts обновляют или добавляют строки, tombstones удаляют.
+    // Строки с неподтвержденной локальной правкой не перезаписываются - это сделает ответ на правку
+    // (при ошибке строка вернется к пропущенной здесь версии), но удаление на сервере применяется и к ним. Повторное применение тех же изменений ничего не меняет.
+    // false - дельта неприменима (сервер ответил reset или версия неизвестна), нужна полная загрузка.
+    // Дельта старее текущей версии (пачка push-событий, опередившая перезагрузку списка) пропускается
+    public boolean applyChanges(ClientChanges changes) {
+        if (changes.isReset() || syncVersion == NO_SYNC_VERSION) {
+            syncVersion = NO_SYNC_VERSION;
+            return false;
+        }
+        if (changes.getVersion() < syncVersion) {
+            return true;
+        }
+        receivedFromServer = true;
+        if (changes.getUpserts().isEmpty() && changes.getDeleted().isEmpty()) {
+            // Список не менялся - снимок не публикуется и не переписывается на диск.
+            // Версия на диске останется прежней, и при следующем запуске тот же пустой диапазон запросится снова
+            syncVersion = changes.getVersion();
+            return true;
+        }
+
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < clients.size(); i++) {
+            positions.put(clients.get(i).getId(), i);
+        }
+        for (Client client : changes.getUpserts()) {
+            Integer position = positions.get(client.getId());
+            if (position == null) {
+                positions.put(client.getId(), clients.size());
+                clients.add(client);
+            } else if (!clients.get(position).isPending()) {
+                clients.set(position, client);
+            } else {
+                skippedServerRows.put(client.getId(), client);
+            }
+            // Строка есть на сервере - ее не нужно удалять, даже если ее страница еще не загружена
+            staleIds.remove(client.getId());
+        }
+        if (!changes.getDeleted().isEmpty()) {
+            Set<Integer> deleted = new HashSet<>(changes.getDeleted());
+            skippedServerRows.keySet().removeAll(deleted);
+            Iterator<Client> iterator = clients.iterator();
+            while (iterator.hasNext()) {
+                if (deleted.contains(iterator.next().getId())) {
+                    iterator.remove();
+                }
+            }
+        }
+        syncVersion = changes.getVersion();
+        publish();
+        persist();
+        return true;
+    }
+
+    public void createClient(String fullName, String contacts, MutationCallback callback) {
+        Client placeholder = new Client(nextTempId--, fullName, contacts);
+        placeholder.setPending(true);
+        clients.add(placeholder);
+        pendingMutations++;
+        publish();
+
+        sender.send(ClientMutation.create(fullName, contacts), result -> {
+            if (result.isSuccess()) {
+                Client created = result.getClient();
+                if (created != null && created.getId() > 0 && indexOfId(created.getId()) >= 0) {
+                    // Новый клиент уже пришел с сервера (clients/changes) раньше ответа
+                    remove(placeholder);
+                } else if (created != null && created.getId() > 0) {
+                    replace(placeholder, created);
+                } else {
+                    // Сервер не вернул id нового клиента - строка придет при перезагрузке,
+                    // временную убираем, чтобы не получить дубликат
+                    remove(placeholder);
+                    requestResync();
+                }
+                mutationFinished();
+                callback.onConfirmed();
+            } else {
+                remove(placeholder);
+                mutationFinished();
+                callback.onFailed(result.isNetworkError() ? "Ошибка сети" : "Ошибка добавления");
+            }
+        });
+    }
+
+    public void updateClient(int id, String fullName, String contacts, MutationCallback callback) {
+        if (id < 0) {
+            callback.onFailed("Клиент еще не сохранен на сервере");
+            return;
+        }
+        int index = indexOfId(id);
+        if (index < 0) {
+            callback.onFailed("Клиент не найден");
+            return;
+        }
+
+        Client original = clients.get(index);
+        Client updated = new Client(id, fullName, contacts);
+        updated.setPending(true);
+        clients.set(index, updated);
+        pendingMutations++;
+        publish();
+
+        sender.send(ClientMutation.update(id, fullName, contacts), result -> {
+            if (result.isSuccess()) {
+                Client confirmed = updated.copy();
+                confirmed.setPending(false);
+                skippedServerRows.remove(id);
+                replace(updated, confirmed);
+                mutationFinished();
+                callback.onConfirmed();
+            } else {
+                // Пока правка ждала ответа, сервер мог прислать более новую версию строки
+                Client serverRow = skippedServerRows.remove(id);
+                replace(updated, serverRow != null ? serverRow : original);
+                mutationFinished();
+                if (isConflict(result.getStatus())) {
+                    requestResync();
+                }
+                callback.onFailed(errorMessage("Ошибка обновления: ", result));
+            }
+        });
+    }
+
+    public void deleteClient(int id, MutationCallback callback) {
+        if (id < 0) {
+            callback.onFailed("Клиент еще не сохранен на сервере");
+            return;
+        }
+        int index = indexOfId(id);
+        if (index < 0) {
+            callback.onFailed("Клиент не найден");
+            return;
+        }
+
+        Client original = clients.remove(index);
+        pendingMutations++;
+        publish();
+
+        sender.send(ClientMutation.delete(id), result -> {
+            // 404 - клиента уже удалили с другого устройства, результат тот же
+            if (result.isSuccess() || result.getStatus() == 404) {
+                mutationFinished();
+                callback.onConfirmed();
+            } else {
+                restore(index, original);
+                mutationFinished();
+                if (isConflict(result.getStatus())) {
+                    requestResync();
+                }
+                callback.onFailed(result.isNetworkError() ? "Ошибка сети" : "Ошибка удаления");
+            }
+        });
+    }
+
+    // Вызывается после того, как ответ применен к списку. Последний ответ - снимок снова
+    // соответствует syncVersion и пишется на диск; до него на диске остается прежний подтвержденный список
+    private void mutationFinished() {
+        if (pendingMutations > 0 && --pendingMutations == 0) {
+            persist();
+        }
+    }
+
+    private void requestResync() {
+        if (listener != null) {
+            listener.onResyncRequired();
+        }
+    }
+
+    private static boolean isConflict(int code) {
+        return code == 404 || code == 409 || code == 412;
+    }
+
+    private static String errorMessage(String prefix, MutationResult result) {
+        if (result.isNetworkError()) {
+            return "Ошибка сети: " + result.getMessage();
+        }
+        String message = prefix + result.getStatus();
+        if (result.getMessage() != null) {
+            message += " - " + result.getMessage();
+        }
+        return message;
+    }
+
+    // Замена выполняется только если в списке все еще наша версия строки:
+    // более позднее изменение той же строки не должно затираться ответом на старое
+    private void replace(Client expected, Client replacement) {
+        int index = indexOf(expected);
+        if (index >= 0) {
+            clients.set(index, replacement);
+            publish();
+        }
+    }
+
+    private void remove(Client client) {
+        int index = indexOf(client);
+        if (index >= 0) {
+            clients.remove(index);
+            publish();
+        }
+    }
+
+    private void restore(int index, Client client) {
+        if (indexOfId(client.getId()) >= 0) {
+            return;
+        }
+        clients.add(Math.min(index, clients.size()), client);
+        publish();
+    }
+
+    private int indexOf(Client client) {
+        for (int i = 0; i < clients.size(); i++) {
+            if (clients.get(i) == client) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfId(int id) {
+        for (int i = 0; i < clients.size(); i++) {
+            if (clients.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void publish() {
+        if (listener != null) {
+            listener.onClientsChanged(new ArrayList<>(clients));
+        }
+    }
+
+    // На диск попадает только подтвержденное сервером состояние
+    private void persist() {
+        List<Client> confirmed = new ArrayList<>(clients.size());
+        for (Client client : clients) {
+            if (!client.isPending()) {
+                confirmed.add(client);
+            }
+        }
+        store.save(confirmed, pendingMutations == 0 && complete ? syncVersion : NO_SYNC_VERSION);
+    }
+}
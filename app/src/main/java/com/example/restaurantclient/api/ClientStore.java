@@ -0,0 +1,167 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.models.Client;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+import android.util.Log;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+ // Хранит последний известный список клиентов на диске (files/clients.json),
+ // чтобы при холодном старте показать данные сразу, не дожидаясь сети.
+ // Рядом (files/clients.version) - версия синхронизации, с которой продолжается clients/changes.
+ // Версия пишется после списка: при сбое между записями она окажется старее списка,
+ // и изменения просто придут повторно (их применение идемпотентно).
+ // Чтение и запись идут в отдельном потоке; запись откладывается на SAVE_DELAY_MS,
+ // и все сохранения за это время схлопываются в одну запись последнего снимка.
+ // Один экземпляр на процесс (getInstance): у файлов один писатель, а поток не плодится при поворотах экрана
+
+public class ClientStore implements ClientRepository.Store {
+    private static final String TAG = "ClientStore";
+    private static final String FILE_NAME = "clients.json";
+    private static final String VERSION_FILE_NAME = "clients.version";
+    private static final Type LIST_TYPE = new TypeToken<List<Client>>() {}.getType();
+    // Пачка push-событий или ответов на правки из журнала пишется на диск один раз
+    private static final long SAVE_DELAY_MS = 1000;
+
+    private static ClientStore instance;
+
+    private final AtomicFile file;
+    private final AtomicFile versionFile;
+    private final Gson gson;
+    private final ScheduledExecutorService ioExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Последний снимок, ожидающий записи; более новый снимок заменяет еще не записанный
+    private final AtomicReference<Snapshot> pendingSnapshot = new AtomicReference<>();
+
+    public interface LoadCallback {
+        // syncVersion - ClientRepository.NO_SYNC_VERSION, если версия неизвестна
+        void onLoaded(List<Client> clients, long syncVersion);
+    }
+
+    private static class Snapshot {
+        final List<Client> clients;
+        final long syncVersion;
+
+        Snapshot(List<Client> clients, long syncVersion) {
+            this.clients = clients;
+            this.syncVersion = syncVersion;
+        }
+    }
+
+    public static synchronized ClientStore getInstance(Context context, Gson gson) {
+        if (instance == null) {
+            instance = new ClientStore(context.getApplicationContext(), gson);
+        }
+        return instance;
+    }
+
+    private ClientStore(Context context, Gson gson) {
+        this.gson = gson;
+        this.file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        this.versionFile = new AtomicFile(new File(context.getFilesDir(), VERSION_FILE_NAME));
+    }
+
+    // Колбэк вызывается в главном потоке; если файла нет или он поврежден - с пустым списком
+    @Override
+    public void load(LoadCallback callback) {
+        ioExecutor.execute(() -> {
+            List<Client> clients = read();
+            // Версия без списка бесполезна: изменения пришлось бы накладывать на пустоту
+            long syncVersion = clients.isEmpty() ? ClientRepository.NO_SYNC_VERSION : readVersion();
+            mainHandler.post(() -> callback.onLoaded(clients, syncVersion));
+        });
+    }
+
+    @Override
+    public void save(List<Client> clients, long syncVersion) {
+        if (pendingSnapshot.getAndSet(new Snapshot(clients, syncVersion)) == null) {
+            ioExecutor.schedule(() -> write(pendingSnapshot.getAndSet(null)), SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void clear() {
+        pendingSnapshot.set(null);
+        ioExecutor.execute(() -> {
+            file.delete();
+            versionFile.delete();
+        });
+    }
+
+    private List<Client> read() {
+        try (Reader reader = new InputStreamReader(file.openRead(), StandardCharsets.UTF_8)) {
+            List<Client> clients = gson.fromJson(reader, LIST_TYPE);
+            return clients != null ? clients : new ArrayList<>();
+        } catch (FileNotFoundException e) {
+            return new ArrayList<>();
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Не удалось прочитать сохраненный список клиентов", e);
+            return new ArrayList<>();
+        }
+    }
+
+    private long readVersion() {
+        try {
+            String text = new String(versionFile.readFully(), StandardCharsets.UTF_8).trim();
+            return Long.parseLong(text);
+        } catch (FileNotFoundException e) {
+            return ClientRepository.NO_SYNC_VERSION;
+        } catch (IOException | NumberFormatException e) {
+            Log.e(TAG, "Не удалось прочитать версию синхронизации", e);
+            return ClientRepository.NO_SYNC_VERSION;
+        }
+    }
+
+    private void write(Snapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            gson.toJson(snapshot.clients, LIST_TYPE, writer);
+            writer.flush();
+            file.finishWrite(out);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Не удалось сохранить список клиентов", e);
+            if (out != null) {
+                file.failWrite(out);
+            }
+            // Список не записан - версию, относящуюся к нему, тоже не пишем
+            return;
+        }
+
+        out = null;
+        try {
+            out = versionFile.startWrite();
+            out.write(Long.toString(snapshot.syncVersion).getBytes(StandardCharsets.UTF_8));
+            versionFile.finishWrite(out);
+        } catch (IOException e) {
+            Log.e(TAG, "Не удалось сохранить версию синхронизации", e);
+            if (out != null) {
+                versionFile.failWrite(out);
+            }
+        }
+    }
+}
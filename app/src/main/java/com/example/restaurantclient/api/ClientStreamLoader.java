@@ -0,0 +1,151 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.models.Client;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import android.os.Handler;
+import android.os.Looper;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+
+ // Потоковая загрузка полного списка клиентов: JSON-массив читается по одному объекту
+ // прямо из сетевого потока, клиенты уходят в UI порциями, пока загрузка еще идет.
+ // Буферизация ограничена: если главный поток не успевает разобрать maxPendingChunks порций,
+ // чтение из сети приостанавливается, поэтому память не растет вместе с размером ответа.
+ // Используется для перезагрузки уже полностью загруженного списка; первая загрузка идет постранично
+
+public class ClientStreamLoader {
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+    public static final int DEFAULT_MAX_PENDING_CHUNKS = 4;
+
+    private final ClientApi clientApi;
+    private final TypeAdapter<Client> clientAdapter;
+    private final int chunkSize;
+    private final Semaphore pendingChunks;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private volatile Call<ResponseBody> inFlight;
+    // Версия данных из заголовка ответа текущей загрузки (ClientApi.SYNC_VERSION_HEADER)
+    private volatile long syncVersion = ClientRepository.NO_SYNC_VERSION;
+
+    public interface ChunkListener {
+        // Вызывается в главном потоке; first - первая порция загрузки, last - порция последняя
+        void onChunk(List<Client> chunk, boolean first, boolean last);
+        void onError(String message);
+    }
+
+    public ClientStreamLoader(ClientApi clientApi, Gson gson) {
+        this(clientApi, gson, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_PENDING_CHUNKS);
+    }
+
+    public ClientStreamLoader(ClientApi clientApi, Gson gson, int chunkSize, int maxPendingChunks) {
+        this.clientApi = clientApi;
+        this.clientAdapter = gson.getAdapter(Client.class);
+        this.chunkSize = chunkSize;
+        this.pendingChunks = new Semaphore(maxPendingChunks);
+    }
+
+    // Предыдущая незавершенная загрузка отменяется
+    public void load(ChunkListener listener) {
+        cancel();
+        Call<ResponseBody> call = clientApi.streamAllClients(ClientApi.LIST_FIELDS);
+        inFlight = call;
+        executor.execute(() -> read(call, listener));
+    }
+
+    public long getSyncVersion() {
+        return syncVersion;
+    }
+
+    public void cancel() {
+        Call<ResponseBody> call = inFlight;
+        inFlight = null;
+        if (call != null) {
+            call.cancel();
+        }
+    }
+
+    private void read(Call<ResponseBody> call, ChunkListener listener) {
+        try {
+            Response<ResponseBody> response = call.execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                postError(call, listener, "Ошибка загрузки клиентов");
+                return;
+            }
+            syncVersion = ClientRepository.syncVersionOf(response.headers());
+
+            try (ResponseBody body = response.body(); JsonReader reader = new JsonReader(body.charStream())) {
+                reader.beginArray();
+                List<Client> chunk = new ArrayList<>(chunkSize);
+                boolean first = true;
+                while (reader.hasNext()) {
+                    chunk.add(clientAdapter.read(reader));
+                    if (chunk.size() == chunkSize) {
+                        // Последняя ли это порция, станет известно только после следующего токена
+                        boolean last = reader.peek() == JsonToken.END_ARRAY;
+                        if (!deliver(call, listener, chunk, first, last)) {
+                            return;
+                        }
+                        first = false;
+                        chunk = new ArrayList<>(chunkSize);
+                        if (last) {
+                            return;
+                        }
+                    }
+                }
+                reader.endArray();
+                deliver(call, listener, chunk, first, true);
+            }
+        } catch (IOException | RuntimeException e) {
+            postError(call, listener, "Ошибка сети: " + e.getMessage());
+        }
+    }
+
+    // Ждет свободного места в очереди порций и отправляет порцию в главный поток.
+    // Возвращает false, если загрузку отменили
+    private boolean deliver(Call<ResponseBody> call, ChunkListener listener,
+                            List<Client> chunk, boolean first, boolean last) {
+        try {
+            while (!pendingChunks.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                if (call != inFlight) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        mainHandler.post(() -> {
+            pendingChunks.release();
+            if (call == inFlight) {
+                if (last) {
+                    inFlight = null;
+                }
+                listener.onChunk(chunk, first, last);
+            }
+        });
+        return true;
+    }
+
+    private void postError(Call<ResponseBody> call, ChunkListener listener, String message) {
+        mainHandler.post(() -> {
+            if (call == inFlight) {
+                inFlight = null;
+                listener.onError(message);
+            }
+        });
+    }
+}
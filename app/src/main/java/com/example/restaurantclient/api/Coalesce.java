@@ -0,0 +1,15 @@
+package com.example.restaurantclient.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+ // Помечает идемпотентный запрос, одинаковые одновременные вызовы которого можно объединить:
+ // пока первый запрос в полете, остальные не уходят в сеть, а получают тот же разобранный ответ.
+ // Результат общий для всех вызывающих - изменять его нельзя
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Coalesce {
+}
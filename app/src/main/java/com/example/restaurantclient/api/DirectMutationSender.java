@@ -0,0 +1,65 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.models.Client;
+import com.example.restaurantclient.models.ClientMutation;
+import com.example.restaurantclient.models.MutationResult;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.io.IOException;
+
+ // Каждая операция - отдельный запрос createClient / updateClient / deleteClient,
+ // ref операции передается как Idempotency-Key
+
+public class DirectMutationSender implements ClientMutationSender {
+    private final ClientApi clientApi;
+
+    public DirectMutationSender(ClientApi clientApi) {
+        this.clientApi = clientApi;
+    }
+
+    @Override
+    public void send(ClientMutation mutation, ResultCallback callback) {
+        switch (mutation.getOp()) {
+            case ClientMutation.CREATE:
+                enqueue(clientApi.createClient(mutation.getFullName(), mutation.getContacts(), mutation.getRef()), mutation, callback);
+                break;
+            case ClientMutation.UPDATE:
+                enqueue(clientApi.updateClient(mutation.getId(), mutation.getFullName(), mutation.getContacts(), mutation.getRef()), mutation, callback);
+                break;
+            case ClientMutation.DELETE:
+                enqueue(clientApi.deleteClient(mutation.getId(), mutation.getRef()), mutation, callback);
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестная операция: " + mutation.getOp());
+        }
+    }
+
+    private static <T> void enqueue(Call<T> call, ClientMutation mutation, ResultCallback callback) {
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                T body = response.body();
+                Client client = body instanceof Client ? (Client) body : null;
+                callback.onResult(new MutationResult(mutation.getRef(), response.code(), client, errorMessage(response)));
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                callback.onResult(MutationResult.networkError(mutation.getRef(), t.getMessage()));
+            }
+        });
+    }
+
+    private static String errorMessage(Response<?> response) {
+        if (response.isSuccessful() || response.errorBody() == null) {
+            return null;
+        }
+        try {
+            return response.errorBody().string();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
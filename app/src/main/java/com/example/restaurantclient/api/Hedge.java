@@ -0,0 +1,17 @@
+package com.example.restaurantclient.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+ // Помечает идемпотентный GET, который можно продублировать: если ответ задерживается
+ // дольше обычного (p95 этого эндпоинта), уходит второй такой же запрос, и берется первый ответ.
+ // Таймаут вызова подбирается по замеренной задержке (HedgingCallAdapterFactory).
+ // Не для запросов с X-Priority: background - их задержка включает ожидание в RequestScheduler,
+ // и копия и таймаут срабатывали бы из-за очереди, а не из-за сервера
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Hedge {
+}
@@ -0,0 +1,302 @@
+package com.example.restaurantclient.api;
+
+import com.example.restaurantclient.models.ClientMutation;
+import com.example.restaurantclient.models.MutationResult;
+import com.google.gson.Gson;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+import android.util.Log;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+ // Журнал неотправленных изменений клиентов (write-ahead outbox).
+ // Каждая операция сначала дописывается в files/outbox.log, и только потом уходит на сервер,
+ // поэтому изменение не теряется ни при обрыве сети, ни при завершении процесса.
+ // Операции отправляются строго по очереди: следующая - после ответа на предыдущую, а если отправитель
+ // сохраняет порядок внутри пачки (ClientBatcher) - сразу несколько записанных в журнал подряд.
+ // При ошибке сети или 5xx - повтор с экспоненциальной задержкой,
+ // ref операции служит ключом идемпотентности, так что повтор не создаст дубликат.
+ // Подтвержденные операции отмечаются в журнале, а сам журнал периодически сжимается.
+ // Используется из главного потока
+
+public class MutationOutbox implements ClientMutationSender {
+    private static final String TAG = "MutationOutbox";
+    private static final String FILE_NAME = "outbox.log";
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 5 * 60 * 1000;
+    // После стольких подтверждений журнал переписывается без них
+    private static final int COMPACT_AFTER_ACKS = 50;
+
+    private final ClientMutationSender delegate;
+    private final Gson gson;
+    private final File journal;
+    private Runnable onRecoveredResult;
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Random random = new Random();
+    private final Runnable sendNextRunnable = this::sendNext;
+
+    private final Deque<Entry> queue = new ArrayDeque<>();
+    private boolean loaded = false;
+    // Операции текущей отправки, на которые еще нет ответа
+    private int inFlight = 0;
+    // В текущей отправке была ошибка, после которой нужен повтор
+    private boolean retryNeeded = false;
+    private int attempt = 0;
+    private int acksSinceCompaction = 0;
+    // Меняется в clear(): ответы на операции, отправленные до очистки, игнорируются
+    private int generation = 0;
+
+    private static class Entry {
+        final ClientMutation mutation;
+        // null для операций, восстановленных из журнала после перезапуска
+        final ResultCallback callback;
+        // Операция уже на диске и ее можно отправлять
+        boolean journaled;
+
+        Entry(ClientMutation mutation, ResultCallback callback, boolean journaled) {
+            this.mutation = mutation;
+            this.callback = callback;
+            this.journaled = journaled;
+        }
+    }
+
+    // Строка журнала: "add" с операцией или "ack" с ref подтвержденной операции
+    private static class Record {
+        String type;
+        String ref;
+        ClientMutation mutation;
+
+        Record(String type, String ref, ClientMutation mutation) {
+            this.type = type;
+            this.ref = ref;
+            this.mutation = mutation;
+        }
+    }
+
+    public MutationOutbox(Context context, ClientMutationSender delegate, Gson gson) {
+        this.delegate = delegate;
+        this.gson = gson;
+        this.journal = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+
+        ioExecutor.execute(() -> {
+            List<ClientMutation> recovered = readJournal();
+            handler.post(() -> onJournalLoaded(recovered, 0));
+        });
+    }
+
+    @Override
+    public void send(ClientMutation mutation, ResultCallback callback) {
+        Entry entry = new Entry(mutation, callback, false);
+        queue.addLast(entry);
+        append(new Record("add", mutation.getRef(), mutation), () -> {
+            entry.journaled = true;
+            sendNext();
+        });
+    }
+
+    // Вызывается, когда сервер ответил на операцию из прошлого запуска приложения -
+    // локальный список о ней не знает, и его стоит перезагрузить
+    public void setOnRecoveredResult(Runnable onRecoveredResult) {
+        this.onRecoveredResult = onRecoveredResult;
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    // Повторить отправку сразу, не дожидаясь конца задержки (например, когда появилась сеть)
+    public void retryNow() {
+        handler.removeCallbacks(sendNextRunnable);
+        attempt = 0;
+        sendNext();
+    }
+
+    // Выход из аккаунта: неотправленные операции прежнего пользователя удаляются из очереди и журнала,
+    // иначе они ушли бы уже с сессией следующего. Колбэки удаленных операций не вызываются
+    @Override
+    public void clear() {
+        generation++;
+        handler.removeCallbacks(sendNextRunnable);
+        queue.clear();
+        delegate.clear();
+        inFlight = 0;
+        retryNeeded = false;
+        attempt = 0;
+        acksSinceCompaction = 0;
+        // После записей, поставленных в очередь раньше
+        ioExecutor.execute(() -> new AtomicFile(journal).delete());
+    }
+
+    private void onJournalLoaded(List<ClientMutation> recovered, int loadGeneration) {
+        loaded = true;
+        if (generation != loadGeneration) {
+            sendNext();
+            return;
+        }
+        // Операции из журнала идут раньше новых, добавленных до окончания чтения
+        for (int i = recovered.size() - 1; i >= 0; i--) {
+            queue.addFirst(new Entry(recovered.get(i), null, true));
+        }
+        sendNext();
+    }
+
+    private void sendNext() {
+        if (!loaded || inFlight > 0 || queue.isEmpty() || !queue.peekFirst().journaled) {
+            return;
+        }
+        handler.removeCallbacks(sendNextRunnable);
+        List<Entry> batch = new ArrayList<>();
+        int limit = Math.max(1, delegate.getMaxInFlight());
+        for (Entry entry : queue) {
+            if (!entry.journaled || batch.size() == limit) {
+                break;
+            }
+            batch.add(entry);
+        }
+        inFlight = batch.size();
+        retryNeeded = false;
+        int sendGeneration = generation;
+        for (Entry entry : batch) {
+            delegate.send(entry.mutation, result -> {
+                if (generation == sendGeneration) {
+                    onResult(entry, result);
+                }
+            });
+        }
+        delegate.flush();
+    }
+
+    private void onResult(Entry entry, MutationResult result) {
+        inFlight--;
+        if (isRetryable(result)) {
+            // Операция остается в очереди и уйдет снова вместе с остальными неотправленными
+            retryNeeded = true;
+            Log.w(TAG, "Повтор " + entry.mutation.getRef() + ": " + result.getMessage());
+        } else {
+            // Успех или окончательный отказ сервера - операция больше не повторяется
+            queue.remove(entry);
+            append(new Record("ack", entry.mutation.getRef(), null), null);
+            if (++acksSinceCompaction >= COMPACT_AFTER_ACKS) {
+                compact();
+            }
+
+            if (entry.callback != null) {
+                entry.callback.onResult(result);
+            } else if (onRecoveredResult != null) {
+                onRecoveredResult.run();
+            }
+        }
+        if (inFlight > 0) {
+            return;
+        }
+
+        if (retryNeeded) {
+            long delay = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(attempt, 20));
+            // Случайный разброс, чтобы устройства не повторяли запросы синхронно
+            delay = delay / 2 + (long) (random.nextDouble() * delay / 2);
+            attempt++;
+            Log.w(TAG, "Повтор отправки через " + delay + " мс");
+            handler.postDelayed(sendNextRunnable, delay);
+            return;
+        }
+        attempt = 0;
+        sendNext();
+    }
+
+    private static boolean isRetryable(MutationResult result) {
+        int status = result.getStatus();
+        return result.isNetworkError() || status == 408 || status == 429 || status >= 500;
+    }
+
+    // afterWrite (если задан) выполняется в главном потоке после записи на диск
+    private void append(Record record, Runnable afterWrite) {
+        String line = gson.toJson(record) + "\n";
+        ioExecutor.execute(() -> {
+            try (FileOutputStream out = new FileOutputStream(journal, true)) {
+                out.write(line.getBytes(StandardCharsets.UTF_8));
+                out.getFD().sync();
+            } catch (IOException e) {
+                // Без журнала операция все равно отправляется - теряется только защита от перезапуска
+                Log.e(TAG, "Не удалось записать журнал изменений", e);
+            }
+            if (afterWrite != null) {
+                handler.post(afterWrite);
+            }
+        });
+    }
+
+    // Переписывает журнал, оставляя только неподтвержденные операции
+    private void compact() {
+        acksSinceCompaction = 0;
+        List<ClientMutation> pending = new ArrayList<>();
+        for (Entry entry : queue) {
+            pending.add(entry.mutation);
+        }
+        ioExecutor.execute(() -> {
+            AtomicFile file = new AtomicFile(journal);
+            FileOutputStream out = null;
+            try {
+                out = file.startWrite();
+                for (ClientMutation mutation : pending) {
+                    String line = gson.toJson(new Record("add", mutation.getRef(), mutation)) + "\n";
+                    out.write(line.getBytes(StandardCharsets.UTF_8));
+                }
+                file.finishWrite(out);
+            } catch (IOException e) {
+                Log.e(TAG, "Не удалось сжать журнал изменений", e);
+                if (out != null) {
+                    file.failWrite(out);
+                }
+            }
+        });
+    }
+
+    private List<ClientMutation> readJournal() {
+        Map<String, ClientMutation> pending = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new AtomicFile(journal).openRead(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Record record;
+                try {
+                    record = gson.fromJson(line, Record.class);
+                } catch (RuntimeException e) {
+                    // Оборванная при сбое последняя строка
+                    Log.w(TAG, "Пропущена поврежденная запись журнала");
+                    continue;
+                }
+                if (record == null || record.ref == null) {
+                    continue;
+                }
+                if ("add".equals(record.type) && record.mutation != null) {
+                    pending.put(record.ref, record.mutation);
+                } else if ("ack".equals(record.type)) {
+                    pending.remove(record.ref);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            return new ArrayList<>();
+        } catch (IOException e) {
+            Log.e(TAG, "Не удалось прочитать журнал изменений", e);
+        }
+        return new ArrayList<>(pending.values());
+    }
+}
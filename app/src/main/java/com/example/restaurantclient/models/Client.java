@@ -4,6 +4,8 @@ public class Client {
     private int id;
     private String fullName;
     private String contacts;
+    // true, пока изменение строки не подтверждено сервером; в JSON не передается
+    private transient boolean pending;
 
     public Client() {}
 
@@ -13,6 +15,12 @@ public class Client {
         this.contacts = contacts;
     }
 
+    public Client copy() {
+        Client copy = new Client(id, fullName, contacts);
+        copy.pending = pending;
+        return copy;
+    }
+
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
 
@@ -21,4 +29,7 @@ public class Client {
 
     public String getContacts() { return contacts; }
     public void setContacts(String contacts) { this.contacts = contacts; }
+
+    public boolean isPending() { return pending; }
+    public void setPending(boolean pending) { this.pending = pending; }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.example.restaurantclient.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+ // Ответ GET clients/changes?since=N: все изменения таблицы клиентов после версии N.
+ // upserts - новые и измененные клиенты, deleted - id удаленных (tombstones),
+ // version - версия, до которой изменения включены (следующий запрос - since=version).
+ // reset == true - сервер уже не хранит историю с версии N, нужна полная загрузка
+
+public class ClientChanges {
+    private long version;
+    private List<Client> upserts = new ArrayList<>();
+    private List<Integer> deleted = new ArrayList<>();
+    private boolean reset;
+
+    public ClientChanges() {}
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public List<Client> getUpserts() { return upserts; }
+    public void setUpserts(List<Client> upserts) { this.upserts = upserts; }
+
+    public List<Integer> getDeleted() { return deleted; }
+    public void setDeleted(List<Integer> deleted) { this.deleted = deleted; }
+
+    public boolean isReset() { return reset; }
+    public void setReset(boolean reset) { this.reset = reset; }
+}
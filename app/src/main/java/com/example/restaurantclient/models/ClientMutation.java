@@ -0,0 +1,55 @@
+package com.example.restaurantclient.models;
+
+import java.util.UUID;
+
+ // Одна операция над клиентом для пакетного запроса POST clients/batch.
+ // ref - уникальная метка операции, по ней сервер возвращает результат в MutationResult
+
+public class ClientMutation {
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private String op;
+    private String ref;
+    private Integer id;
+    private String fullName;
+    private String contacts;
+
+    public ClientMutation() {}
+
+    private ClientMutation(String op, Integer id, String fullName, String contacts) {
+        this.op = op;
+        this.ref = UUID.randomUUID().toString();
+        this.id = id;
+        this.fullName = fullName;
+        this.contacts = contacts;
+    }
+
+    public static ClientMutation create(String fullName, String contacts) {
+        return new ClientMutation(CREATE, null, fullName, contacts);
+    }
+
+    public static ClientMutation update(int id, String fullName, String contacts) {
+        return new ClientMutation(UPDATE, id, fullName, contacts);
+    }
+
+    public static ClientMutation delete(int id) {
+        return new ClientMutation(DELETE, id, null, null);
+    }
+
+    public String getOp() { return op; }
+    public void setOp(String op) { this.op = op; }
+
+    public String getRef() { return ref; }
+    public void setRef(String ref) { this.ref = ref; }
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public String getFullName() { return fullName; }
+    public void setFullName(String fullName) { this.fullName = fullName; }
+
+    public String getContacts() { return contacts; }
+    public void setContacts(String contacts) { this.contacts = contacts; }
+}
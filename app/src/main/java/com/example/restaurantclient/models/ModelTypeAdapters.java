@@ -0,0 +1,414 @@
+package com.example.restaurantclient.models;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+ // Написанные вручную потоковые адаптеры Gson для всех моделей - без рефлексии.
+ // Формат JSON в точности совпадает с тем, что давал рефлективный Gson: те же имена полей
+ // в том же порядке, null-поля не пишутся, transient-поле pending не передается,
+ // неизвестные поля пропускаются, числа и логические значения принимаются и в виде строк.
+ // Подключается в ApiClient: new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters())
+
+public class ModelTypeAdapters implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == Client.class) {
+            return (TypeAdapter<T>) new ClientAdapter().nullSafe();
+        }
+        if (raw == User.class) {
+            return (TypeAdapter<T>) new UserAdapter().nullSafe();
+        }
+        if (raw == AuthResponse.class) {
+            return (TypeAdapter<T>) new AuthResponseAdapter(gson.getAdapter(User.class)).nullSafe();
+        }
+        if (raw == ClientMutation.class) {
+            return (TypeAdapter<T>) new ClientMutationAdapter().nullSafe();
+        }
+        if (raw == MutationResult.class) {
+            return (TypeAdapter<T>) new MutationResultAdapter(gson.getAdapter(Client.class)).nullSafe();
+        }
+        if (raw == ClientChanges.class) {
+            return (TypeAdapter<T>) new ClientChangesAdapter(gson.getAdapter(Client.class)).nullSafe();
+        }
+        return null;
+    }
+
+    private static class ClientAdapter extends TypeAdapter<Client> {
+        @Override
+        public void write(JsonWriter out, Client client) throws IOException {
+            out.beginObject();
+            out.name("id").value(client.getId());
+            out.name("fullName").value(client.getFullName());
+            out.name("contacts").value(client.getContacts());
+            out.endObject();
+        }
+
+        @Override
+        public Client read(JsonReader in) throws IOException {
+            Client client = new Client();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        client.setId(readInt(in, client.getId()));
+                        break;
+                    case "fullName":
+                        client.setFullName(readString(in));
+                        break;
+                    case "contacts":
+                        client.setContacts(readString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return client;
+        }
+    }
+
+    private static class UserAdapter extends TypeAdapter<User> {
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            out.beginObject();
+            out.name("id").value(user.getId());
+            out.name("login").value(user.getLogin());
+            out.name("role").value(user.getRole());
+            out.name("fullName").value(user.getFullName());
+            out.name("email").value(user.getEmail());
+            out.endObject();
+        }
+
+        @Override
+        public User read(JsonReader in) throws IOException {
+            User user = new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        user.setId(readInt(in, user.getId()));
+                        break;
+                    case "login":
+                        user.setLogin(readString(in));
+                        break;
+                    case "role":
+                        user.setRole(readString(in));
+                        break;
+                    case "fullName":
+                        user.setFullName(readString(in));
+                        break;
+                    case "email":
+                        user.setEmail(readString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return user;
+        }
+    }
+
+    private static class AuthResponseAdapter extends TypeAdapter<AuthResponse> {
+        private final TypeAdapter<User> userAdapter;
+
+        AuthResponseAdapter(TypeAdapter<User> userAdapter) {
+            this.userAdapter = userAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, AuthResponse response) throws IOException {
+            out.beginObject();
+            out.name("success").value(response.isSuccess());
+            out.name("authenticated").value(response.isAuthenticated());
+            out.name("message").value(response.getMessage());
+            out.name("user");
+            userAdapter.write(out, response.getUser());
+            out.endObject();
+        }
+
+        @Override
+        public AuthResponse read(JsonReader in) throws IOException {
+            AuthResponse response = new AuthResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "success":
+                        response.setSuccess(readBoolean(in, response.isSuccess()));
+                        break;
+                    case "authenticated":
+                        response.setAuthenticated(readBoolean(in, response.isAuthenticated()));
+                        break;
+                    case "message":
+                        response.setMessage(readString(in));
+                        break;
+                    case "user":
+                        response.setUser(userAdapter.read(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    }
+
+    private static class ClientMutationAdapter extends TypeAdapter<ClientMutation> {
+        @Override
+        public void write(JsonWriter out, ClientMutation mutation) throws IOException {
+            out.beginObject();
+            out.name("op").value(mutation.getOp());
+            out.name("ref").value(mutation.getRef());
+            out.name("id").value(mutation.getId());
+            out.name("fullName").value(mutation.getFullName());
+            out.name("contacts").value(mutation.getContacts());
+            out.endObject();
+        }
+
+        @Override
+        public ClientMutation read(JsonReader in) throws IOException {
+            ClientMutation mutation = new ClientMutation();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "op":
+                        mutation.setOp(readString(in));
+                        break;
+                    case "ref":
+                        mutation.setRef(readString(in));
+                        break;
+                    case "id":
+                        mutation.setId(readInteger(in));
+                        break;
+                    case "fullName":
+                        mutation.setFullName(readString(in));
+                        break;
+                    case "contacts":
+                        mutation.setContacts(readString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return mutation;
+        }
+    }
+
+    private static class MutationResultAdapter extends TypeAdapter<MutationResult> {
+        private final TypeAdapter<Client> clientAdapter;
+
+        MutationResultAdapter(TypeAdapter<Client> clientAdapter) {
+            this.clientAdapter = clientAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, MutationResult result) throws IOException {
+            out.beginObject();
+            out.name("ref").value(result.getRef());
+            out.name("status").value(result.getStatus());
+            out.name("client");
+            clientAdapter.write(out, result.getClient());
+            out.name("message").value(result.getMessage());
+            out.endObject();
+        }
+
+        @Override
+        public MutationResult read(JsonReader in) throws IOException {
+            MutationResult result = new MutationResult();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "ref":
+                        result.setRef(readString(in));
+                        break;
+                    case "status":
+                        result.setStatus(readInt(in, result.getStatus()));
+                        break;
+                    case "client":
+                        result.setClient(clientAdapter.read(in));
+                        break;
+                    case "message":
+                        result.setMessage(readString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return result;
+        }
+    }
+
+    private static class ClientChangesAdapter extends TypeAdapter<ClientChanges> {
+        private final TypeAdapter<Client> clientAdapter;
+
+        ClientChangesAdapter(TypeAdapter<Client> clientAdapter) {
+            this.clientAdapter = clientAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, ClientChanges changes) throws IOException {
+            out.beginObject();
+            out.name("version").value(changes.getVersion());
+            if (changes.getUpserts() != null) {
+                out.name("upserts").beginArray();
+                for (Client client : changes.getUpserts()) {
+                    clientAdapter.write(out, client);
+                }
+                out.endArray();
+            }
+            if (changes.getDeleted() != null) {
+                out.name("deleted").beginArray();
+                for (Integer id : changes.getDeleted()) {
+                    out.value(id);
+                }
+                out.endArray();
+            }
+            out.name("reset").value(changes.isReset());
+            out.endObject();
+        }
+
+        @Override
+        public ClientChanges read(JsonReader in) throws IOException {
+            ClientChanges changes = new ClientChanges();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "version":
+                        changes.setVersion(readLong(in, changes.getVersion()));
+                        break;
+                    case "upserts":
+                        changes.setUpserts(readClients(in));
+                        break;
+                    case "deleted":
+                        changes.setDeleted(readIds(in));
+                        break;
+                    case "reset":
+                        changes.setReset(readBoolean(in, changes.isReset()));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return changes;
+        }
+
+        // null вместо массива читается как пустой список
+        private List<Client> readClients(JsonReader in) throws IOException {
+            List<Client> clients = new ArrayList<>();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return clients;
+            }
+            in.beginArray();
+            while (in.hasNext()) {
+                Client client = clientAdapter.read(in);
+                if (client != null) {
+                    clients.add(client);
+                }
+            }
+            in.endArray();
+            return clients;
+        }
+
+        private static List<Integer> readIds(JsonReader in) throws IOException {
+            List<Integer> ids = new ArrayList<>();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return ids;
+            }
+            in.beginArray();
+            while (in.hasNext()) {
+                Integer id = readInteger(in);
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+            in.endArray();
+            return ids;
+        }
+    }
+
+    // Как у рефлективного Gson: null для примитивного поля оставляет значение по умолчанию
+    private static int readInt(JsonReader in, int fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static long readLong(JsonReader in, long fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static boolean readBoolean(JsonReader in, boolean fallback) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.restaurantclient.models;
+
+ // Результат одной операции ClientMutation.
+ // status - HTTP-код этой операции (0 - до сервера достучаться не удалось),
+ // client - созданный или обновленный клиент, если сервер его вернул
+
+public class MutationResult {
+    public static final int NETWORK_ERROR = 0;
+
+    private String ref;
+    private int status;
+    private Client client;
+    private String message;
+
+    public MutationResult() {}
+
+    public MutationResult(String ref, int status, Client client, String message) {
+        this.ref = ref;
+        this.status = status;
+        this.client = client;
+        this.message = message;
+    }
+
+    public static MutationResult networkError(String ref, String message) {
+        return new MutationResult(ref, NETWORK_ERROR, null, message);
+    }
+
+    public boolean isSuccess() { return status >= 200 && status < 300; }
+    public boolean isNetworkError() { return status == NETWORK_ERROR; }
+
+    public String getRef() { return ref; }
+    public void setRef(String ref) { this.ref = ref; }
+
+    public int getStatus() { return status; }
+    public void setStatus(int status) { this.status = status; }
+
+    public Client getClient() { return client; }
+    public void setClient(Client client) { this.client = client; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
@@ -0,0 +1,95 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.ClientApi;
+import com.example.restaurantclient.models.Client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class CallTrackerTest {
+    private MockWebServer server;
+    private ClientApi clientApi;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        clientApi = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ClientApi.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private static <T> Callback<T> counting(AtomicInteger delivered, CountDownLatch done) {
+        return new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                delivered.incrementAndGet();
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                delivered.incrementAndGet();
+                done.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void deliversResultAndForgetsFinishedCall() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+        CallTracker tracker = new CallTracker();
+        AtomicInteger delivered = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+
+        tracker.enqueue(clientApi.getClientsPage(0, 50, null), counting(delivered, done));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, delivered.get());
+        assertEquals(0, tracker.getActiveCount());
+    }
+
+    @Test
+    public void cancelAllStopsCallsAndDropsCallbacks() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]").setHeadersDelay(1, TimeUnit.SECONDS));
+        CallTracker tracker = new CallTracker();
+        AtomicInteger delivered = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        Call<List<Client>> call = clientApi.getClientsPage(0, 50, null);
+
+        tracker.enqueue(call, counting(delivered, done));
+        assertEquals(1, tracker.getActiveCount());
+        tracker.cancelAll();
+
+        assertTrue(call.isCanceled());
+        assertFalse(done.await(300, TimeUnit.MILLISECONDS));
+        assertEquals(0, delivered.get());
+        // После закрытия экрана новые запросы не отправляются
+        tracker.enqueue(clientApi.getClientsPage(0, 50, null), counting(delivered, done));
+        assertEquals(0, tracker.getActiveCount());
+        assertEquals(0, delivered.get());
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.ClientChangeStream;
+import com.example.restaurantclient.api.ClientRepository;
+import com.example.restaurantclient.models.ClientChanges;
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+ // Колбэки подписки складываются в очередь и выполняются тестом - как главный поток,
+ // который разбирает их позже, чем приходят события
+
+public class ClientChangeStreamTest {
+    private MockWebServer server;
+    private ClientChangeStream stream;
+    private final BlockingQueue<Runnable> mainThread = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+
+    private final ClientChangeStream.Listener listener = new ClientChangeStream.Listener() {
+        @Override
+        public void onChanges(ClientChanges changes) {
+            received.add(changes);
+        }
+
+        @Override
+        public void onResyncRequired() {
+            received.add("resync");
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        stream = new ClientChangeStream(new OkHttpClient(), server.url("/api/"), new Gson(), mainThread::add);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        stream.stop();
+        server.shutdown();
+    }
+
+    private Object runMainThreadUntilResult() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (received.isEmpty()) {
+            Runnable task = mainThread.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            assertNotNull("no callback", task);
+            task.run();
+        }
+        return received.poll();
+    }
+
+    @Test
+    public void eventsAreBatchedAndStreamResumesFromLastEvent() throws Exception {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody(": ping\n\n"
+                        + "id: 4\nevent: upsert\ndata: {\"id\":1,\"fullName\":\"Иванов\",\"contacts\":\"+7 900 1\"}\n\n"
+                        + "id: 5\nevent: upsert\ndata: {\"id\":2,\"fullName\":\"Петров\",\"contacts\":\"\"}\n\n"
+                        + "id: 6\nevent: delete\ndata: {\"id\":1}\n\n"));
+        // Переподключение: сервер не может восстановить историю
+        server.enqueue(new MockResponse()
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS)
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody("event: reset\ndata: \n\n"));
+
+        stream.start(3, listener);
+
+        RecordedRequest first = server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals("/api/clients/events?since=3", first.getPath());
+        assertEquals("3", first.getHeader("Last-Event-ID"));
+        assertEquals("text/event-stream", first.getHeader("Accept"));
+        // Второе подключение началось - все события первого уже разобраны
+        RecordedRequest second = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull(second);
+        assertEquals("6", second.getHeader("Last-Event-ID"));
+
+        ClientChanges changes = (ClientChanges) runMainThreadUntilResult();
+        assertEquals(6, changes.getVersion());
+        assertEquals(1, changes.getUpserts().size());
+        assertEquals(2, changes.getUpserts().get(0).getId());
+        assertEquals(1, changes.getDeleted().size());
+        assertEquals(1, (int) changes.getDeleted().get(0));
+        assertTrue(mainThread.isEmpty());
+
+        assertEquals("resync", runMainThreadUntilResult());
+        assertFalse(stream.isRunning());
+    }
+
+    @Test
+    public void serverWithoutEventsEndpointIsNotPolled() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        stream.start(3, listener);
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (stream.isRunning()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        stream.start(3, listener);
+        Thread.sleep(ClientChangeStream.DEFAULT_RETRY_MS + 200);
+        assertEquals(1, server.getRequestCount());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void unknownVersionClosesStreamUntilVersionIsKnown() throws Exception {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody(": ping\n\n")
+                .setBodyDelay(500, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody(": ping\n\n")
+                .setBodyDelay(500, TimeUnit.MILLISECONDS));
+
+        stream.start(3, listener);
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        assertTrue(stream.isRunning());
+
+        // Список перезагружается - подписка закрыта, события не приходят
+        stream.start(ClientRepository.NO_SYNC_VERSION, listener);
+        assertFalse(stream.isRunning());
+
+        // Перезагрузка закончилась - подписка продолжается с новой версии
+        stream.start(8, listener);
+        assertTrue(stream.isRunning());
+        RecordedRequest resumed = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull(resumed);
+        assertEquals("8", resumed.getHeader("Last-Event-ID"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.ClientCsv;
+import com.example.restaurantclient.models.Client;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class ClientCsvTest {
+
+    @Test
+    public void readsQuotedFieldsDelimitersAndLineNumbers() throws IOException {
+        ClientCsv.Reader reader = new ClientCsv.Reader(new StringReader(
+                "﻿ФИО;Контакты\r\n"
+                        + "\"Иванов; Иван\";\"+7 900 1\"\r\n"
+                        + "\r\n"
+                        + "\"Петров \"\"Петя\"\"\";\"строка 1\nстрока 2\"\n"
+                        + "Сидоров,Сидор;\n"));
+
+        String[] header = reader.next();
+        ClientCsv.Columns columns = ClientCsv.Columns.fromHeader(header);
+        assertNotNull(columns);
+        assertEquals(1, reader.getLine());
+
+        String[] row = reader.next();
+        assertEquals("Иванов; Иван", columns.fullName(row));
+        assertEquals("+7 900 1", columns.contacts(row));
+        assertEquals(2, reader.getLine());
+
+        row = reader.next();
+        assertEquals("Петров \"Петя\"", columns.fullName(row));
+        assertEquals("строка 1\nстрока 2", columns.contacts(row));
+        assertEquals(4, reader.getLine());
+
+        // Разделитель уже выбран - запятая остается частью ФИО
+        row = reader.next();
+        assertEquals("Сидоров,Сидор", columns.fullName(row));
+        assertEquals("", columns.contacts(row));
+        assertEquals(6, reader.getLine());
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void unclosedQuoteIsFormatError() throws IOException {
+        ClientCsv.Reader reader = new ClientCsv.Reader(new StringReader("Иванов,1\n\"Петров,2\nСидоров,3\n"));
+        assertNotNull(reader.next());
+        try {
+            reader.next();
+            fail();
+        } catch (ClientCsv.FormatException e) {
+            assertEquals(2, e.line);
+        }
+    }
+
+    @Test
+    public void writtenFileReadsBack() throws IOException {
+        StringBuilder out = new StringBuilder();
+        ClientCsv.Writer writer = new ClientCsv.Writer(out);
+        writer.writeHeader();
+        writer.write(new Client(1, "Иванов, Иван", "\"VIP\"\nзвонить вечером"));
+        writer.write(new Client(2, "Петров", null));
+
+        ClientCsv.Reader reader = new ClientCsv.Reader(new StringReader(out.toString()));
+        ClientCsv.Columns columns = ClientCsv.Columns.fromHeader(reader.next());
+        assertNotNull(columns);
+        String[] row = reader.next();
+        assertEquals("1", row[0]);
+        assertEquals("Иванов, Иван", columns.fullName(row));
+        assertEquals("\"VIP\"\nзвонить вечером", columns.contacts(row));
+        row = reader.next();
+        assertEquals("Петров", columns.fullName(row));
+        assertEquals("", columns.contacts(row));
+        assertNull(reader.next());
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.ClientApi;
+import com.example.restaurantclient.api.ClientImporter;
+import com.example.restaurantclient.models.ClientMutation;
+import com.example.restaurantclient.models.MutationResult;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class ClientImporterTest {
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_IN_FLIGHT = 2;
+
+    private final Gson gson = new Gson();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicInteger largestChunk = new AtomicInteger();
+    private volatile int failStatus = 0;
+    private MockWebServer server;
+    private ClientImporter importer;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        // Сервер создает всех клиентов, кроме тех, чье ФИО начинается с "Дубль"
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(2);
+                    if (failStatus != 0) {
+                        return new MockResponse().setResponseCode(failStatus);
+                    }
+                    List<ClientMutation> mutations = gson.fromJson(request.getBody().readUtf8(),
+                            new TypeToken<List<ClientMutation>>() {}.getType());
+                    largestChunk.accumulateAndGet(mutations.size(), Math::max);
+                    List<MutationResult> results = new ArrayList<>();
+                    for (ClientMutation mutation : mutations) {
+                        results.add(mutation.getFullName().startsWith("Дубль")
+                                ? new MutationResult(mutation.getRef(), 409, null, "клиент уже существует")
+                                : new MutationResult(mutation.getRef(), 201, null, null));
+                    }
+                    return new MockResponse().setBody(gson.toJson(results));
+                } finally {
+                    active.decrementAndGet();
+                }
+            }
+        });
+        server.start();
+
+        ClientApi clientApi = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ClientApi.class);
+        importer = new ClientImporter(clientApi, CHUNK_SIZE, MAX_IN_FLIGHT, Runnable::run);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        importer.cancel();
+        server.shutdown();
+    }
+
+    private ClientImporter.Result run(InputStream in) throws InterruptedException {
+        BlockingQueue<ClientImporter.Result> finished = new LinkedBlockingQueue<>();
+        importer.importFrom(in, new ClientImporter.Listener() {
+            @Override
+            public void onProgress(int rowsRead, int imported, int failed) {}
+
+            @Override
+            public void onFinished(ClientImporter.Result result) {
+                finished.add(result);
+            }
+        });
+        ClientImporter.Result result = finished.poll(60, TimeUnit.SECONDS);
+        assertNotNull("import did not finish", result);
+        return result;
+    }
+
+    // Файл из rows строк создается по мере чтения, целиком в памяти его нет и в тесте
+    private static InputStream generatedCsv(int rows) {
+        return new InputStream() {
+            private int row = -1;
+            private byte[] line = new byte[0];
+            private int pos = 0;
+
+            @Override
+            public int read() {
+                while (pos == line.length) {
+                    if (++row > rows) {
+                        return -1;
+                    }
+                    String text;
+                    if (row == 0) {
+                        text = "fullName,contacts\n";
+                    } else if (row % 1000 == 0) {
+                        text = ",без имени\n";
+                    } else if (row % 777 == 0) {
+                        text = "Дубль " + row + ",+7 900 " + row + "\n";
+                    } else {
+                        text = "Клиент " + row + ",+7 900 " + row + "\n";
+                    }
+                    line = text.getBytes(StandardCharsets.UTF_8);
+                    pos = 0;
+                }
+                return line[pos++] & 0xff;
+            }
+        };
+    }
+
+    private static boolean hasError(ClientImporter.Result result, int line, String message) {
+        for (ClientImporter.RowError error : result.errors) {
+            if (error.line == line && error.message.equals(message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void largeFileIsSentInBoundedChunks() throws Exception {
+        int rows = 100_000;
+        ClientImporter.Result result = run(generatedCsv(rows));
+
+        int withoutName = rows / 1000;
+        int duplicates = 0;
+        for (int row = 1; row <= rows; row++) {
+            if (row % 777 == 0 && row % 1000 != 0) {
+                duplicates++;
+            }
+        }
+        assertNull(result.abortMessage);
+        assertEquals(rows, result.rowsRead);
+        assertEquals(rows - withoutName - duplicates, result.imported);
+        assertEquals(withoutName + duplicates, result.failed);
+        assertEquals(ClientImporter.MAX_REPORTED_ERRORS, result.errors.size());
+        // Номера строк файла с учетом заголовка
+        assertTrue(result.errors.toString(), hasError(result, 778, "клиент уже существует"));
+        assertTrue(result.errors.toString(), hasError(result, 1001, "не указано ФИО"));
+
+        int sent = rows - withoutName;
+        assertEquals((sent + CHUNK_SIZE - 1) / CHUNK_SIZE, server.getRequestCount());
+        assertEquals(CHUNK_SIZE, largestChunk.get());
+        assertTrue("in flight " + maxActive.get(), maxActive.get() <= MAX_IN_FLIGHT);
+    }
+
+    @Test
+    public void failedChunkStopsImport() throws Exception {
+        failStatus = 500;
+        ClientImporter.Result result = run(generatedCsv(10_000));
+
+        assertEquals("Ошибка пакетного запроса: 500", result.abortMessage);
+        assertEquals(0, result.imported);
+        // Дальше пакетов в полете файл не читается
+        assertTrue("requests " + server.getRequestCount(), server.getRequestCount() <= MAX_IN_FLIGHT + 1);
+        assertTrue(result.rowsRead <= (MAX_IN_FLIGHT + 2) * CHUNK_SIZE + 10);
+    }
+
+    @Test
+    public void formatErrorReportsLine() throws Exception {
+        String csv = "Иванов;+7 900 1\nПетров;\"+7 900 2\n";
+        ClientImporter.Result result = run(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("Строка 2: не закрыта кавычка", result.abortMessage);
+        assertEquals(1, result.rowsRead);
+        // Прочитанное до ошибки отправлено
+        assertEquals(1, result.imported);
+    }
+
+    @Test
+    public void resultFinishedWithoutListenerGoesToNextListener() throws Exception {
+        CountDownLatch detached = new CountDownLatch(1);
+        byte[] csv = "Иванов,+7 900 1\n".getBytes(StandardCharsets.UTF_8);
+        // Файл начинает читаться только после того, как экран отвязан
+        InputStream in = new ByteArrayInputStream(csv) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                try {
+                    detached.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(b, off, len);
+            }
+        };
+        BlockingQueue<ClientImporter.Result> lost = new LinkedBlockingQueue<>();
+        importer.importFrom(in, new ClientImporter.Listener() {
+            @Override
+            public void onProgress(int rowsRead, int imported, int failed) {}
+
+            @Override
+            public void onFinished(ClientImporter.Result result) {
+                lost.add(result);
+            }
+        });
+        importer.setListener(null);
+        detached.countDown();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (importer.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(importer.isRunning());
+
+        List<ClientImporter.Result> delivered = new ArrayList<>();
+        ClientImporter.Listener next = new ClientImporter.Listener() {
+            @Override
+            public void onProgress(int rowsRead, int imported, int failed) {}
+
+            @Override
+            public void onFinished(ClientImporter.Result result) {
+                delivered.add(result);
+            }
+        };
+        importer.setListener(next);
+        importer.setListener(next);
+
+        assertEquals(1, delivered.size());
+        assertEquals(1, delivered.get(0).imported);
+        assertTrue(lost.isEmpty());
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.adapter.ClientPagingSource;
+import com.example.restaurantclient.api.ClientApi;
+import com.example.restaurantclient.api.ClientRepository;
+import com.example.restaurantclient.api.ClientStore;
+import com.example.restaurantclient.models.Client;
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class ClientPagingSourceTest {
+    private static final int PAGE_SIZE = 3;
+    private static final int TABLE_SIZE = 10;
+
+    private final Gson gson = new Gson();
+    // Таблица на сервере: строки по возрастанию id
+    private final Map<Integer, Client> table = new ConcurrentSkipListMap<>();
+    private final BlockingQueue<Boolean> loadedPages = new LinkedBlockingQueue<>();
+    private MockWebServer server;
+    private ClientRepository repository;
+    private ClientPagingSource pagingSource;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int id = 1; id <= TABLE_SIZE; id++) {
+            table.put(id, new Client(id, "Клиент " + id, null));
+        }
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                HttpUrl url = request.getRequestUrl();
+                int afterId = Integer.parseInt(url.queryParameter("afterId"));
+                int limit = Integer.parseInt(url.queryParameter("limit"));
+                List<Client> page = new ArrayList<>();
+                for (Client client : table.values()) {
+                    if (client.getId() > afterId && page.size() < limit) {
+                        page.add(client);
+                    }
+                }
+                return new MockResponse()
+                        .setHeader(ClientApi.SYNC_VERSION_HEADER, "7")
+                        .setBody(gson.toJson(page));
+            }
+        });
+        server.start();
+
+        ClientApi clientApi = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build()
+                .create(ClientApi.class);
+        repository = new ClientRepository((mutation, callback) -> { }, new CachedStore(table.values()));
+        pagingSource = new ClientPagingSource(clientApi, PAGE_SIZE, 0, new ClientPagingSource.PageListener() {
+            @Override
+            public void onPageLoaded(List<Client> page, boolean first, boolean last) {
+                repository.applyPage(page, first, last, pagingSource.getSyncVersion());
+                loadedPages.add(last);
+            }
+
+            @Override
+            public void onPageError(String message) {
+                fail(message);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void rowDeletedBeforeCursorDoesNotHideNextRow() throws Exception {
+        // Список с прошлого запуска: все строки ждут сверки и удаляются, если сервер их не вернет
+        repository.restoreFromStore(() -> { });
+        pagingSource.refresh();
+        assertFalse(awaitPage());
+        assertEquals(7, repository.getSyncVersion());
+        assertFalse(repository.isComplete());
+
+        // Строку с уже загруженной страницы удалили - при смещении 3 следующая страница началась бы с id 5
+        table.remove(2);
+        boolean last = false;
+        while (!last) {
+            pagingSource.onPositionVisible(Integer.MAX_VALUE);
+            last = awaitPage();
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        for (Client client : repository.getClients()) {
+            ids.add(client.getId());
+        }
+        for (int id = 3; id <= TABLE_SIZE; id++) {
+            assertTrue("строка " + id + " удалена при сверке", ids.contains(id));
+        }
+        assertTrue(repository.isComplete());
+        assertTrue(pagingSource.isEndReached());
+    }
+
+    @Test
+    public void pagesLoadOnlyWhileScrolling() throws Exception {
+        pagingSource.refresh();
+        assertFalse(awaitPage());
+        assertEquals(PAGE_SIZE, repository.getClients().size());
+
+        // Прокрутка не дошла до конца загруженного - следующая страница не нужна
+        pagingSource.onPositionVisible(0);
+        assertNull(loadedPages.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private boolean awaitPage() throws InterruptedException {
+        Boolean last = loadedPages.poll(5, TimeUnit.SECONDS);
+        assertNotNull("страница не загружена", last);
+        return last;
+    }
+
+    // Сохраненный на диске список без версии: сверяется постранично
+    private static class CachedStore implements ClientRepository.Store {
+        private final List<Client> cached;
+
+        CachedStore(Iterable<Client> clients) {
+            cached = new ArrayList<>();
+            for (Client client : clients) {
+                cached.add(client.copy());
+            }
+        }
+
+        @Override
+        public void load(ClientStore.LoadCallback callback) {
+            callback.onLoaded(new ArrayList<>(cached), ClientRepository.NO_SYNC_VERSION);
+        }
+
+        @Override
+        public void save(List<Client> clients, long syncVersion) {
+        }
+
+        @Override
+        public void clear() {
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.ClientMutationSender;
+import com.example.restaurantclient.api.ClientRepository;
+import com.example.restaurantclient.api.ClientStore;
+import com.example.restaurantclient.models.Client;
+import com.example.restaurantclient.models.ClientChanges;
+import com.example.restaurantclient.models.ClientMutation;
+import com.example.restaurantclient.models.MutationResult;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ClientRepositoryTest {
+    private FakeStore store;
+    private FakeSender sender;
+    private ClientRepository repository;
+
+    @Before
+    public void setUp() {
+        store = new FakeStore();
+        sender = new FakeSender();
+        repository = new ClientRepository(sender, store);
+    }
+
+    @Test
+    public void listIsWrittenAtSyncPointsOnly() {
+        int pages = 20;
+        for (int page = 0; page < pages; page++) {
+            repository.applyPage(clients(page * 10 + 1, 10), page == 0, page == pages - 1, 5);
+        }
+        // Первая и последняя страница, а не каждая
+        assertEquals(2, store.saves);
+        assertEquals(5, store.savedVersion);
+        assertEquals(pages * 10, store.saved.size());
+
+        repository.applyChanges(changes(6, new Client(1, "Новое имя", null)));
+        assertEquals(3, store.saves);
+        assertEquals(6, store.savedVersion);
+    }
+
+    @Test
+    public void mutationsAreWrittenAfterLastResult() {
+        repository.applyPage(clients(1, 3), true, true, 5);
+        int saves = store.saves;
+
+        repository.updateClient(1, "Клиент 1а", null, new NoopCallback());
+        repository.updateClient(2, "Клиент 2а", null, new NoopCallback());
+        assertEquals(saves, store.saves);
+
+        sender.answer(0, MutationResult.networkError(null, "нет сети"));
+        assertEquals(saves, store.saves);
+        sender.answer(1, new MutationResult(null, 200, null, null));
+        assertEquals(saves + 1, store.saves);
+        assertEquals(5, store.savedVersion);
+        assertEquals("Клиент 1", store.saved.get(0).getFullName());
+        assertEquals("Клиент 2а", store.saved.get(1).getFullName());
+    }
+
+    @Test
+    public void failedUpdateFallsBackToServerRowReceivedMeanwhile() {
+        repository.applyPage(clients(1, 3), true, true, 5);
+        repository.updateClient(2, "Локальная правка", null, new NoopCallback());
+
+        // Правка с другого устройства пришла, пока своя ждала ответа, - версия уже 6
+        repository.applyChanges(changes(6, new Client(2, "Правка с сервера", null)));
+        assertEquals("Локальная правка", repository.getClients().get(1).getFullName());
+
+        sender.answer(0, new MutationResult(null, 500, null, null));
+        Client row = repository.getClients().get(1);
+        assertEquals("Правка с сервера", row.getFullName());
+        assertFalse(row.isPending());
+        assertEquals(6, repository.getSyncVersion());
+        assertEquals("Правка с сервера", store.saved.get(1).getFullName());
+    }
+
+    @Test
+    public void partialListIsWrittenWithoutVersion() {
+        repository.applyPage(clients(1, 10), true, false, 5);
+        assertEquals(5, repository.getSyncVersion());
+        assertFalse(repository.isComplete());
+        assertEquals(ClientRepository.NO_SYNC_VERSION, store.savedVersion);
+    }
+
+    private static List<Client> clients(int firstId, int count) {
+        List<Client> clients = new ArrayList<>();
+        for (int id = firstId; id < firstId + count; id++) {
+            clients.add(new Client(id, "Клиент " + id, null));
+        }
+        return clients;
+    }
+
+    private static ClientChanges changes(long version, Client upsert) {
+        ClientChanges changes = new ClientChanges();
+        changes.setVersion(version);
+        changes.setUpserts(Collections.singletonList(upsert));
+        changes.setDeleted(Collections.emptyList());
+        return changes;
+    }
+
+    private static class FakeStore implements ClientRepository.Store {
+        int saves;
+        List<Client> saved = Collections.emptyList();
+        long savedVersion = ClientRepository.NO_SYNC_VERSION;
+
+        @Override
+        public void load(ClientStore.LoadCallback callback) {
+            callback.onLoaded(new ArrayList<>(), ClientRepository.NO_SYNC_VERSION);
+        }
+
+        @Override
+        public void save(List<Client> clients, long syncVersion) {
+            saves++;
+            saved = clients;
+            savedVersion = syncVersion;
+        }
+
+        @Override
+        public void clear() {
+            saved = Collections.emptyList();
+            savedVersion = ClientRepository.NO_SYNC_VERSION;
+        }
+    }
+
+    // Отвечает на правки, когда скажет тест
+    private static class FakeSender implements ClientMutationSender {
+        final List<ResultCallback> callbacks = new ArrayList<>();
+
+        @Override
+        public void send(ClientMutation mutation, ResultCallback callback) {
+            callbacks.add(callback);
+        }
+
+        void answer(int index, MutationResult result) {
+            callbacks.get(index).onResult(result);
+        }
+    }
+
+    private static class NoopCallback implements ClientRepository.MutationCallback {
+        @Override
+        public void onConfirmed() {
+        }
+
+        @Override
+        public void onFailed(String message) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.adapter.ClientRowBinder;
+import com.example.restaurantclient.adapter.ClientSorter;
+import com.example.restaurantclient.models.Client;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+ // Привязка строк при прокрутке не должна создавать объекты.
+ // ClientAdapter.onBindViewHolder только передает ViewHolder в ClientRowBinder.bind, поэтому проверяется
+ // сам ClientRowBinder: строка здесь - FakeRow без android.view, а адаптер без главного потока
+ // (AsyncListDiffer) в JVM-тесте не создать
+
+public class ClientRowBinderTest {
+    private static final int CLIENTS = 2_000;
+
+    private List<Client> sorted;
+    private ClientRowBinder rows;
+    private FakeRow row;
+
+    // Запоминает последнее показанное - как TextView, без копирования строк
+    private static final class FakeRow implements ClientRowBinder.Row {
+        String section, fullName, contacts;
+        boolean pending;
+
+        @Override
+        public void showSection(String section) {
+            this.section = section;
+        }
+
+        @Override
+        public void showClient(String fullName, String contacts, boolean pending) {
+            this.fullName = fullName;
+            this.contacts = contacts;
+            this.pending = pending;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            // Каждый третий без контактов - проверяется и подстановка текста по умолчанию
+            clients.add(new Client(1000 + i, "Клиент " + (char) ('А' + i % 30) + i, i % 3 == 0 ? null : "+7 900 " + i));
+        }
+        ClientSorter sorter = new ClientSorter();
+        sorter.sync(clients);
+
+        sorted = sorter.getSortedList();
+        rows = new ClientRowBinder();
+        rows.setSectionProvider(sorter);
+        rows.setClients(sorted);
+        row = new FakeRow();
+    }
+
+    // Пролистывает весь список вниз и обратно, как при быстрой прокрутке
+    private void scroll() {
+        int count = rows.getCount();
+        for (int position = 0; position < count; position++) {
+            rows.bind(row, position);
+        }
+        for (int position = count - 1; position >= 0; position--) {
+            rows.bind(row, position);
+        }
+    }
+
+    @Test
+    public void bindDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        long thread = Thread.currentThread().getId();
+
+        // Первый проход считает разделы списка - это один раз на список, а не на строку
+        scroll();
+        threads.getThreadAllocatedBytes(thread);
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 5; i++) {
+            scroll();
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        // 20 000 привязок; даже один объект на привязку дал бы сотни килобайт
+        assertTrue("bind allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    @Test
+    public void usesClientIdsAsStableIds() {
+        assertEquals(CLIENTS, rows.getCount());
+        for (int position = 0; position < sorted.size(); position++) {
+            assertEquals(sorted.get(position).getId(), rows.getItemId(position));
+        }
+    }
+
+    @Test
+    public void bindsSectionOnlyOnFirstRowOfSection() {
+        Object[] sections = rows.getSections();
+        assertTrue(sections.length > 0);
+        for (int section = 0; section < sections.length; section++) {
+            int first = rows.getPositionForSection(section);
+            rows.bind(row, first);
+            assertEquals(sections[section], row.section);
+            assertEquals(section, rows.getSectionForPosition(first));
+            if (first + 1 < rows.getCount() && rows.getSectionForPosition(first + 1) == section) {
+                rows.bind(row, first + 1);
+                assertNull(row.section);
+            }
+        }
+    }
+
+    @Test
+    public void bindsClientAndDefaultContacts() {
+        for (int position = 0; position < sorted.size(); position++) {
+            Client client = sorted.get(position);
+            rows.bind(row, position);
+            assertEquals(client.getFullName(), row.fullName);
+            assertEquals(client.getContacts() != null ? client.getContacts() : "Нет контактов", row.contacts);
+            assertFalse(row.pending);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.adapter.ClientSearchIndex;
+import com.example.restaurantclient.models.Client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ClientSearchIndexTest {
+
+    private static List<Client> sample() {
+        return new ArrayList<>(Arrays.asList(
+                new Client(1, "Иванов Иван Иванович", "+7 (900) 123-45-67"),
+                new Client(2, "Ёлкина Анна", "anna@example.com"),
+                new Client(3, "Петров Пётр", null)));
+    }
+
+    private static List<Integer> ids(List<Client> clients) {
+        List<Integer> ids = new ArrayList<>();
+        for (Client client : clients) {
+            ids.add(client.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void prefixSubstringAndCaseFolding() {
+        ClientSearchIndex index = new ClientSearchIndex();
+        List<Client> clients = sample();
+        index.sync(clients);
+
+        assertEquals(Arrays.asList(1), ids(index.filter(clients, "ИВ")));
+        assertEquals(Arrays.asList(1), ids(index.filter(clients, "ванов")));
+        assertEquals(Arrays.asList(2), ids(index.filter(clients, "елкина")));
+        assertEquals(Arrays.asList(3), ids(index.filter(clients, "петр")));
+        assertEquals(Arrays.asList(1), ids(index.filter(clients, "9001234567")));
+        assertEquals(Arrays.asList(2), ids(index.filter(clients, "анна example")));
+        assertTrue(index.filter(clients, "сидоров").isEmpty());
+        assertSame(clients, index.filter(clients, "  "));
+    }
+
+    @Test
+    public void updatesIncrementally() {
+        ClientSearchIndex index = new ClientSearchIndex();
+        List<Client> clients = sample();
+        index.sync(clients);
+
+        clients.set(0, new Client(1, "Сидоров Иван", "+7 (900) 123-45-67"));
+        clients.remove(2);
+        clients.add(new Client(4, "Петрова Мария", ""));
+        index.sync(clients);
+
+        assertEquals(3, index.size());
+        assertTrue(index.filter(clients, "иванов").isEmpty());
+        assertEquals(Arrays.asList(1), ids(index.filter(clients, "сидор")));
+        assertEquals(Arrays.asList(4), ids(index.filter(clients, "петр")));
+    }
+
+    @Test
+    public void largeIndexStaysConsistent() {
+        ClientSearchIndex index = new ClientSearchIndex();
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            clients.add(new Client(i, "Клиент " + i, "+7 900 " + i));
+        }
+        index.sync(clients);
+        for (int i = 0; i < 20000; i += 2) {
+            index.remove(i);
+        }
+        assertEquals(10000, index.size());
+        assertEquals(Arrays.asList(12345), ids(index.filter(clients, "клиент 12345")));
+        assertTrue(index.filter(clients, "клиент 12344").isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.adapter.ClientSorter;
+import com.example.restaurantclient.models.Client;
+
+import org.junit.Test;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ClientSorterTest {
+
+    private static List<String> names(List<Client> clients) {
+        List<String> names = new ArrayList<>();
+        for (Client client : clients) {
+            names.add(client.getFullName());
+        }
+        return names;
+    }
+
+    @Test
+    public void sortsRussianNamesWithSections() {
+        ClientSorter sorter = new ClientSorter();
+        List<Client> clients = Arrays.asList(
+                new Client(1, "Яковлев", ""),
+                new Client(2, "ёжиков", ""),
+                new Client(3, "Ежов", ""),
+                new Client(4, "Абрамов", ""),
+                new Client(5, "Жуков", ""));
+        sorter.sync(clients);
+
+        assertEquals(Arrays.asList("Абрамов", "ёжиков", "Ежов", "Жуков", "Яковлев"), names(sorter.getSortedList()));
+        assertEquals("Е", sorter.sectionOf(clients.get(1)));
+
+        sorter.setMode(ClientSorter.Mode.ID);
+        assertEquals("Яковлев", sorter.getSortedList().get(0).getFullName());
+        assertNull(sorter.sectionOf(clients.get(0)));
+    }
+
+    @Test
+    public void editRepositionsRowAndMarksItRecent() {
+        ClientSorter sorter = new ClientSorter();
+        List<Client> clients = new ArrayList<>(Arrays.asList(
+                new Client(1, "Борисов", ""),
+                new Client(2, "Васильев", ""),
+                new Client(3, "Григорьев", "")));
+        sorter.sync(clients);
+
+        clients.set(0, new Client(1, "Яшин", ""));
+        sorter.sync(clients);
+        assertEquals(Arrays.asList("Васильев", "Григорьев", "Яшин"), names(sorter.getSortedList()));
+
+        sorter.setMode(ClientSorter.Mode.RECENT);
+        assertEquals("Яшин", sorter.getSortedList().get(0).getFullName());
+
+        // Та же строка, заново загруженная с сервера, не становится "недавней"
+        clients.set(2, new Client(3, "Григорьев", ""));
+        sorter.sync(clients);
+        assertEquals("Яшин", sorter.getSortedList().get(0).getFullName());
+    }
+
+    @Test
+    public void incrementalUpdatesMatchFullSort() {
+        ClientSorter sorter = new ClientSorter();
+        Random random = new Random(7);
+        String[] surnames = {"Иванов", "Петров", "Ёлкин", "Сидорова", "абрамова", "Щукин"};
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            clients.add(new Client(i, surnames[random.nextInt(surnames.length)] + " " + random.nextInt(100), ""));
+        }
+        sorter.sync(clients);
+
+        for (int step = 0; step < 200; step++) {
+            int index = random.nextInt(clients.size());
+            if (step % 3 == 0) {
+                clients.remove(index);
+            } else {
+                Client old = clients.get(index);
+                clients.set(index, new Client(old.getId(), surnames[random.nextInt(surnames.length)] + " " + step, ""));
+            }
+            sorter.sync(clients);
+        }
+
+        Collator collator = Collator.getInstance(new Locale("ru"));
+        List<Client> expected = new ArrayList<>(clients);
+        expected.sort((a, b) -> {
+            int byName = collator.compare(a.getFullName(), b.getFullName());
+            return byName != 0 ? byName : Integer.compare(a.getId(), b.getId());
+        });
+        assertEquals(names(expected), names(sorter.getSortedList()));
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.AuthApi;
+import com.example.restaurantclient.models.AuthResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+ // Ответ MockWebServer задерживается, чтобы второй вызов успел присоединиться к первому
+
+public class CoalescingCallAdapterFactoryTest {
+    private static final String AUTHENTICATED = "{\"authenticated\":true}";
+
+    private MockWebServer server;
+    private CoalescingCallAdapterFactory coalescing;
+    private AuthApi authApi;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        coalescing = new CoalescingCallAdapterFactory();
+        authApi = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addCallAdapterFactory(coalescing)
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(AuthApi.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    // Результаты асинхронного вызова: Response или Throwable
+    private BlockingQueue<Object> enqueue(Call<AuthResponse> call) {
+        BlockingQueue<Object> result = new LinkedBlockingQueue<>();
+        call.enqueue(new Callback<AuthResponse>() {
+            @Override
+            public void onResponse(Call<AuthResponse> c, Response<AuthResponse> response) {
+                result.add(response);
+            }
+
+            @Override
+            public void onFailure(Call<AuthResponse> c, Throwable t) {
+                result.add(t);
+            }
+        });
+        return result;
+    }
+
+    private static Object take(BlockingQueue<Object> result) throws InterruptedException {
+        Object value = result.poll(10, TimeUnit.SECONDS);
+        assertNotNull("no result", value);
+        return value;
+    }
+
+    private void enqueueSlowResponse() {
+        server.enqueue(new MockResponse().setBody(AUTHENTICATED).setHeadersDelay(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void identicalCallsShareOneRequestAndResponse() throws Exception {
+        enqueueSlowResponse();
+
+        BlockingQueue<Object> first = enqueue(authApi.checkAuth());
+        BlockingQueue<Object> second = enqueue(authApi.checkAuth());
+
+        Object firstResult = take(first);
+        Object secondResult = take(second);
+        assertTrue(firstResult instanceof Response);
+        assertSame(firstResult, secondResult);
+        assertTrue(((Response<?>) firstResult).isSuccessful());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, coalescing.getSavedCallCount());
+    }
+
+    @Test
+    public void callAfterCompletionStartsNewRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody(AUTHENTICATED));
+        server.enqueue(new MockResponse().setBody(AUTHENTICATED));
+
+        assertTrue(take(enqueue(authApi.checkAuth())) instanceof Response);
+        assertTrue(take(enqueue(authApi.checkAuth())) instanceof Response);
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0, coalescing.getSavedCallCount());
+    }
+
+    @Test
+    public void cancelingOneWaiterKeepsRequestForOthers() throws Exception {
+        enqueueSlowResponse();
+
+        BlockingQueue<Object> first = enqueue(authApi.checkAuth());
+        Call<AuthResponse> secondCall = authApi.checkAuth();
+        BlockingQueue<Object> second = enqueue(secondCall);
+        secondCall.cancel();
+
+        Object canceled = take(second);
+        assertTrue(canceled instanceof IOException);
+        assertEquals("Canceled", ((IOException) canceled).getMessage());
+        assertTrue(secondCall.isCanceled());
+
+        Object firstResult = take(first);
+        assertTrue(firstResult instanceof Response);
+        assertTrue(((Response<?>) firstResult).isSuccessful());
+        assertEquals(1, server.getRequestCount());
+        // Отмененный вызов получает ровно один результат
+        assertNull(second.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void cancelingAllWaitersCancelsRequest() throws Exception {
+        enqueueSlowResponse();
+        server.enqueue(new MockResponse().setBody(AUTHENTICATED));
+
+        Call<AuthResponse> firstCall = authApi.checkAuth();
+        Call<AuthResponse> secondCall = authApi.checkAuth();
+        BlockingQueue<Object> first = enqueue(firstCall);
+        BlockingQueue<Object> second = enqueue(secondCall);
+        firstCall.cancel();
+        secondCall.cancel();
+
+        assertTrue(take(first) instanceof IOException);
+        assertTrue(take(second) instanceof IOException);
+        assertNull(first.poll(800, TimeUnit.MILLISECONDS));
+        assertNull(second.poll(0, TimeUnit.MILLISECONDS));
+
+        // Отмененный запрос больше не объединяет: следующий вызов идет на сервер заново
+        Object next = take(enqueue(authApi.checkAuth()));
+        assertTrue(next instanceof Response);
+        assertTrue(((Response<?>) next).isSuccessful());
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.restaurantclient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class EndpointSelectorTest {
+    private MockWebServer primary;
+    private MockWebServer replica;
+    private EndpointSelector selector;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        primary = new MockWebServer();
+        replica = new MockWebServer();
+        primary.start();
+        replica.start();
+        selector = new EndpointSelector(Arrays.asList(
+                primary.url("/lab6_4kurs/").toString(), replica.url("/replica/").toString()));
+        client = new OkHttpClient.Builder().addInterceptor(selector.interceptor()).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private Response call(String method, String path) throws Exception {
+        Request.Builder builder = new Request.Builder().url(primary.url("/lab6_4kurs/" + path));
+        if ("POST".equals(method)) {
+            builder.post(RequestBody.create("{}", MediaType.get("application/json")));
+        }
+        return client.newCall(builder.build()).execute();
+    }
+
+    @Test
+    public void idempotentCallFailsOverAndReplicaLeavesRotation() throws Exception {
+        primary.enqueue(new MockResponse().setResponseCode(503));
+        replica.enqueue(new MockResponse().setBody("first"));
+        replica.enqueue(new MockResponse().setBody("second"));
+
+        try (Response response = call("GET", "clients?fields=id")) {
+            assertEquals("first", response.body().string());
+        }
+        RecordedRequest routed = replica.takeRequest();
+        assertEquals("/replica/clients?fields=id", routed.getPath());
+
+        // Упавшая реплика вне ротации - следующий запрос сразу идет на живую
+        try (Response response = call("GET", "auth/check")) {
+            assertEquals("second", response.body().string());
+        }
+        assertEquals(1, primary.getRequestCount());
+
+        List<EndpointSelector.EndpointStats> stats = selector.snapshot();
+        assertFalse(stats.get(0).healthy);
+        assertEquals(1, stats.get(0).failures);
+        assertEquals(1, stats.get(0).failovers);
+        assertTrue(stats.get(1).healthy);
+        assertEquals(2, stats.get(1).calls);
+    }
+
+    @Test
+    public void nonIdempotentCallIsNotRepeated() throws Exception {
+        primary.enqueue(new MockResponse().setResponseCode(503));
+
+        try (Response response = call("POST", "clients")) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(0, replica.getRequestCount());
+    }
+
+    @Test
+    public void loginSkipsUnreachableReplica() throws Exception {
+        // Первая в списке реплика не принимает соединения
+        MockWebServer dead = new MockWebServer();
+        dead.start();
+        String deadUrl = dead.url("/lab6_4kurs/").toString();
+        dead.shutdown();
+        selector = new EndpointSelector(Arrays.asList(deadUrl, replica.url("/replica/").toString()));
+        client = new OkHttpClient.Builder().addInterceptor(selector.interceptor()).build();
+
+        // POST без Idempotency-Key и без сессии: до мертвой реплики он не дошел, поэтому повторяется
+        replica.enqueue(new MockResponse().setHeader("Set-Cookie", "JSESSIONID=abc; Path=/"));
+        Request login = new Request.Builder().url(deadUrl + "auth/login")
+                .post(RequestBody.create("login=a", MediaType.get("application/x-www-form-urlencoded")))
+                .build();
+        try (Response response = client.newCall(login).execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals("/replica/auth/login", replica.takeRequest().getPath());
+        assertFalse(selector.snapshot().get(0).healthy);
+
+        // После выхода новая сессия выбирается заново - мертвая реплика вне ротации
+        selector.clearSession();
+        replica.enqueue(new MockResponse().setBody("alive"));
+        try (Response response = client.newCall(new Request.Builder().url(deadUrl + "clients").build()).execute()) {
+            assertEquals("alive", response.body().string());
+        }
+        assertEquals(1, selector.snapshot().get(0).calls);
+    }
+
+    @Test
+    public void routesToReplicaWithLowestLatency() throws Exception {
+        primary.enqueue(new MockResponse().setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        replica.enqueue(new MockResponse());
+        selector.probeAll(new OkHttpClient());
+        assertTrue(selector.snapshot().get(0).latencyMs > selector.snapshot().get(1).latencyMs);
+
+        replica.enqueue(new MockResponse().setBody("fast"));
+        try (Response response = call("GET", "clients")) {
+            assertEquals("fast", response.body().string());
+        }
+        // Проверка: HEAD базового URL каждой реплики
+        assertEquals("HEAD", primary.takeRequest().getMethod());
+        assertEquals(1, primary.getRequestCount());
+    }
+
+    @Test
+    public void sessionStaysOnReplicaThatIssuedIt() throws Exception {
+        primary.enqueue(new MockResponse().setHeader("Set-Cookie", "JSESSIONID=abc; Path=/; HttpOnly"));
+        try (Response response = call("POST", "auth/login")) {
+            assertEquals(200, response.code());
+        }
+
+        // Вторая реплика быстрее, но сессии на ней нет
+        primary.enqueue(new MockResponse().setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        replica.enqueue(new MockResponse());
+        selector.probeAll(new OkHttpClient());
+        assertTrue(selector.snapshot().get(0).latencyMs > selector.snapshot().get(1).latencyMs);
+
+        primary.enqueue(new MockResponse().setBody("session"));
+        try (Response response = call("GET", "clients")) {
+            assertEquals("session", response.body().string());
+        }
+        // Только проверка
+        assertEquals(1, replica.getRequestCount());
+    }
+
+    @Test
+    public void sessionMovesOnlyOnFailover() throws Exception {
+        primary.enqueue(new MockResponse().setHeader("Set-Cookie", "JSESSIONID=abc; Path=/"));
+        call("POST", "auth/login").close();
+
+        primary.enqueue(new MockResponse().setResponseCode(503));
+        replica.enqueue(new MockResponse().setBody("failover"));
+        try (Response response = call("GET", "clients")) {
+            assertEquals("failover", response.body().string());
+        }
+
+        // Первая реплика вернулась в ротацию, но сессия уже на второй
+        primary.enqueue(new MockResponse());
+        replica.enqueue(new MockResponse().setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        selector.probeAll(new OkHttpClient());
+        assertTrue(selector.snapshot().get(0).healthy);
+
+        replica.enqueue(new MockResponse().setBody("sticky"));
+        try (Response response = call("GET", "clients")) {
+            assertEquals("sticky", response.body().string());
+        }
+        assertEquals(3, primary.getRequestCount());
+    }
+}
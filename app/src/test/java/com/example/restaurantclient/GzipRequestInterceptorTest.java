@@ -0,0 +1,109 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.ClientApi;
+import com.example.restaurantclient.models.ClientMutation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.GzipSource;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class GzipRequestInterceptorTest {
+    private MockWebServer server;
+    private NetworkMetrics metrics;
+    private ClientApi clientApi;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        metrics = new NetworkMetrics("/api/");
+
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(metrics.interceptor())
+                .addInterceptor(new GzipRequestInterceptor())
+                .addNetworkInterceptor(metrics.networkInterceptor())
+                .build();
+        clientApi = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .client(client)
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ClientApi.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private static List<ClientMutation> batch(int size) {
+        List<ClientMutation> mutations = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            mutations.add(ClientMutation.create("Клиент " + i, "client" + i + "@example.com"));
+        }
+        return mutations;
+    }
+
+    private static String unzip(RecordedRequest request) throws Exception {
+        Buffer plain = new Buffer();
+        try (GzipSource source = new GzipSource(request.getBody())) {
+            while (source.read(plain, 8192) != -1) {
+                // читаем до конца
+            }
+        }
+        return plain.readUtf8();
+    }
+
+    @Test
+    public void compressesLargeBatchAndReportsRatio() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        clientApi.batchClients(batch(100)).execute();
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        assertNull(request.getHeader(GzipRequestInterceptor.HEADER));
+        long wireSize = request.getBodySize();
+        String json = unzip(request);
+        assertTrue(json.startsWith("[{\"op\":\"create\""));
+
+        NetworkMetrics.EndpointSnapshot snapshot = metrics.snapshot().get("POST clients/batch");
+        assertEquals(json.getBytes("UTF-8").length, snapshot.bytesOut);
+        assertEquals(wireSize, snapshot.wireBytesOut);
+        assertTrue(snapshot.compressionRatioOut() > 3);
+    }
+
+    @Test
+    public void sendsSmallBodiesAsIsAndFallsBackOn415() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+        clientApi.batchClients(Collections.singletonList(ClientMutation.delete(1))).execute();
+        assertNull(server.takeRequest().getHeader("Content-Encoding"));
+
+        server.enqueue(new MockResponse().setResponseCode(415));
+        server.enqueue(new MockResponse().setBody("[]"));
+        server.enqueue(new MockResponse().setBody("[]"));
+        assertTrue(clientApi.batchClients(batch(100)).execute().isSuccessful());
+        assertEquals("gzip", server.takeRequest().getHeader("Content-Encoding"));
+        assertNull(server.takeRequest().getHeader("Content-Encoding"));
+
+        // Сервер без поддержки сжатия запоминается - следующий запрос сразу уходит без gzip
+        clientApi.batchClients(batch(100)).execute();
+        assertNull(server.takeRequest().getHeader("Content-Encoding"));
+        assertEquals(4, server.getRequestCount());
+    }
+}
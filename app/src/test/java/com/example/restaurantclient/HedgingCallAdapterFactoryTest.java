@@ -0,0 +1,124 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.AuthApi;
+import com.example.restaurantclient.models.AuthResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+ // Задержки ответов задает локальный MockWebServer: ответы раздаются в порядке поступления запросов,
+ // поэтому первая попытка получает медленный ответ, а копия - следующий в очереди
+
+public class HedgingCallAdapterFactoryTest {
+    private static final String AUTHENTICATED = "{\"authenticated\":true}";
+
+    private MockWebServer server;
+    private HedgingCallAdapterFactory hedging;
+    private AuthApi authApi;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        hedging = new HedgingCallAdapterFactory(300, 5_000);
+        authApi = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addCallAdapterFactory(new CoalescingCallAdapterFactory())
+                .addCallAdapterFactory(hedging)
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(AuthApi.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    // Результат асинхронного вызова: Response или Throwable
+    private Object await(Call<AuthResponse> call) throws InterruptedException {
+        BlockingQueue<Object> result = new LinkedBlockingQueue<>();
+        call.enqueue(new Callback<AuthResponse>() {
+            @Override
+            public void onResponse(Call<AuthResponse> call, Response<AuthResponse> response) {
+                result.add(response);
+            }
+
+            @Override
+            public void onFailure(Call<AuthResponse> call, Throwable t) {
+                result.add(t);
+            }
+        });
+        Object value = result.poll(10, TimeUnit.SECONDS);
+        assertNotNull("no result", value);
+        return value;
+    }
+
+    private void warmUp() throws InterruptedException {
+        for (int i = 0; i < HedgingCallAdapterFactory.MIN_SAMPLES; i++) {
+            server.enqueue(new MockResponse().setBody(AUTHENTICATED).setBodyDelay(5, TimeUnit.MILLISECONDS));
+            assertTrue(await(authApi.checkAuth()) instanceof Response);
+        }
+    }
+
+    @Test
+    public void slowAttemptIsHedgedAndFasterCopyWins() throws Exception {
+        warmUp();
+        server.enqueue(new MockResponse().setBody(AUTHENTICATED).setHeadersDelay(1500, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody(AUTHENTICATED));
+
+        long start = System.nanoTime();
+        Object result = await(authApi.checkAuth());
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(result instanceof Response);
+        assertTrue(((Response<?>) result).isSuccessful());
+        assertTrue("took " + elapsedMs + "ms", elapsedMs < 1_000);
+        assertEquals(HedgingCallAdapterFactory.MIN_SAMPLES + 2, server.getRequestCount());
+        HedgingCallAdapterFactory.EndpointStats stats = hedging.snapshot().get("GET /api/auth/check");
+        assertEquals(1, stats.hedges);
+        assertEquals(1, stats.hedgeWins);
+    }
+
+    @Test
+    public void fastEndpointIsNotHedgedBeforeEnoughSamples() throws Exception {
+        server.enqueue(new MockResponse().setBody(AUTHENTICATED).setHeadersDelay(500, TimeUnit.MILLISECONDS));
+
+        assertTrue(await(authApi.checkAuth()) instanceof Response);
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, hedging.snapshot().get("GET /api/auth/check").timeoutMs);
+    }
+
+    @Test
+    public void timeoutFollowsMeasuredLatency() throws Exception {
+        warmUp();
+        assertEquals(300, hedging.snapshot().get("GET /api/auth/check").timeoutMs);
+        // Обе попытки - и исходная, и копия - не укладываются в таймаут
+        server.enqueue(new MockResponse().setBody(AUTHENTICATED).setHeadersDelay(1500, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody(AUTHENTICATED).setHeadersDelay(1500, TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        Object result = await(authApi.checkAuth());
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(String.valueOf(result), result instanceof InterruptedIOException);
+        assertTrue("took " + elapsedMs + "ms", elapsedMs < 1_000);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.models.AuthResponse;
+import com.example.restaurantclient.models.Client;
+import com.example.restaurantclient.models.ClientChanges;
+import com.example.restaurantclient.models.ClientMutation;
+import com.example.restaurantclient.models.ModelTypeAdapters;
+import com.example.restaurantclient.models.MutationResult;
+import com.example.restaurantclient.models.User;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+ // Совместимость ручных адаптеров с рефлективным Gson: одинаковый JSON на выходе
+ // и одинаковые объекты при разборе тех же ответов сервера
+
+public class ModelTypeAdaptersTest {
+    private final Gson reflective = new Gson();
+    private final Gson handWritten = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create();
+
+    private void assertSameJson(Object value) {
+        assertEquals(reflective.toJson(value), handWritten.toJson(value));
+    }
+
+    // Разбор обоими способами и сравнение через сериализацию рефлективным Gson
+    private void assertSameParse(String json, Type type) {
+        Object expected = reflective.fromJson(json, type);
+        Object actual = handWritten.fromJson(json, type);
+        assertEquals(reflective.toJson(expected), reflective.toJson(actual));
+    }
+
+    @Test
+    public void writesSameJson() {
+        Client pending = new Client(7, "Иванов Иван", null);
+        pending.setPending(true);
+        assertSameJson(pending);
+        assertSameJson(Arrays.asList(new Client(1, "А", "+7 900"), new Client(2, null, "")));
+
+        User user = new User();
+        user.setId(3);
+        user.setLogin("admin");
+        user.setRole("ADMIN");
+        AuthResponse auth = new AuthResponse();
+        auth.setAuthenticated(true);
+        auth.setUser(user);
+        assertSameJson(auth);
+        assertSameJson(new AuthResponse());
+
+        assertSameJson(ClientMutation.create("Петров", "mail@example.com"));
+        assertSameJson(ClientMutation.delete(5));
+        assertSameJson(new MutationResult("r1", 201, new Client(9, "Сидоров", null), null));
+        assertSameJson(MutationResult.networkError("r2", "timeout"));
+        assertSameJson(new ClientChanges());
+    }
+
+    @Test
+    public void readsCurrentServerShapes() {
+        assertSameParse("[{\"id\":1,\"fullName\":\"Иванов\",\"contacts\":\"+7 900\"},"
+                + "{\"id\":\"2\",\"fullName\":null,\"extra\":{\"nested\":[1,2]}},"
+                + "{\"id\":null,\"contacts\":12345}]", new TypeToken<List<Client>>() {}.getType());
+        assertSameParse("{\"success\":true,\"authenticated\":\"true\",\"message\":\"ok\","
+                + "\"user\":{\"id\":3,\"login\":\"admin\",\"role\":\"ADMIN\",\"fullName\":\"Админ\",\"email\":null,\"token\":\"x\"}}",
+                AuthResponse.class);
+        assertSameParse("{\"authenticated\":false,\"user\":null}", AuthResponse.class);
+        assertSameParse("[{\"ref\":\"a\",\"status\":200,\"client\":{\"id\":4,\"fullName\":\"Б\"}},"
+                + "{\"ref\":\"b\",\"status\":409,\"message\":\"conflict\"}]",
+                new TypeToken<List<MutationResult>>() {}.getType());
+        assertSameParse("{\"version\":42,\"upserts\":[{\"id\":1,\"fullName\":\"Г\"}],\"deleted\":[2,\"3\"],\"reset\":false}",
+                ClientChanges.class);
+        assertSameParse("{\"op\":\"update\",\"ref\":\"r\",\"id\":5,\"fullName\":\"В\"}", ClientMutation.class);
+        assertNull(handWritten.fromJson("null", Client.class));
+        // Пустые изменения сервер может прислать без массивов или с null вместо них
+        ClientChanges empty = handWritten.fromJson("{\"version\":7,\"upserts\":null}", ClientChanges.class);
+        assertEquals(7, empty.getVersion());
+        assertTrue(empty.getUpserts().isEmpty());
+        assertTrue(empty.getDeleted().isEmpty());
+    }
+
+    @Test
+    public void skipsTransientPendingFlag() {
+        Client client = handWritten.fromJson("{\"id\":1,\"pending\":true}", Client.class);
+        assertFalse(client.isPending());
+        assertEquals(1, client.getId());
+    }
+}
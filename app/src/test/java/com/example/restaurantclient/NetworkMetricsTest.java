@@ -0,0 +1,157 @@
+package com.example.restaurantclient;
+
+import com.example.restaurantclient.api.ClientApi;
+import com.example.restaurantclient.models.Client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class NetworkMetricsTest {
+    private MockWebServer server;
+    private NetworkMetrics metrics;
+    private ClientApi clientApi;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        metrics = new NetworkMetrics("/api/");
+
+        clientApi = createApi(new OkHttpClient.Builder());
+    }
+
+    private ClientApi createApi(OkHttpClient.Builder builder) {
+        OkHttpClient client = builder
+                .addInterceptor(metrics.interceptor())
+                .addNetworkInterceptor(metrics.networkInterceptor())
+                .build();
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .client(client)
+                .addConverterFactory(metrics.converterFactory())
+                .addConverterFactory(new NullOnEmptyConverterFactory())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ClientApi.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void recordsCallsBytesAndParseTimePerEndpoint() throws Exception {
+        String body = "[{\"id\":1,\"fullName\":\"Иванов\",\"contacts\":\"+7\"}]";
+        server.enqueue(new MockResponse().setBody(body));
+        server.enqueue(new MockResponse().setBody(body));
+
+        Response<List<Client>> response = clientApi.getClientsPage(0, 50, null).execute();
+        clientApi.getClientsPage(50, 50, null).execute();
+
+        assertEquals(1, response.body().size());
+        NetworkMetrics.EndpointSnapshot clients = metrics.snapshot().get("GET clients");
+        assertNotNull(clients);
+        assertEquals(2, clients.calls);
+        assertEquals(0, clients.errors);
+        assertEquals(2L * body.getBytes("UTF-8").length, clients.bytesIn);
+        assertTrue(clients.latencyP99Ms >= clients.latencyP50Ms);
+        assertTrue(clients.parseTotalMs > 0);
+    }
+
+    @Test
+    public void countsErrorsAndRequestBytes() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse());
+
+        clientApi.deleteClient(7, "key").execute();
+        clientApi.createClient("Петров", "", "key2").execute();
+
+        NetworkMetrics.Snapshot snapshot = metrics.snapshot();
+        NetworkMetrics.EndpointSnapshot delete = snapshot.get("DELETE clients");
+        assertEquals(1, delete.calls);
+        assertEquals(1, delete.errors);
+        NetworkMetrics.EndpointSnapshot create = snapshot.get("POST clients");
+        assertEquals(0, create.errors);
+        assertTrue(create.bytesOut > 0);
+    }
+
+    private static String clientsJson(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= count; i++) {
+            json.append(i > 1 ? "," : "").append("{\"id\":").append(i).append(",\"fullName\":\"Иванов Иван\",\"contacts\":\"+7 900\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static Buffer gzip(String body) throws Exception {
+        Buffer gzipped = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(gzipped))) {
+            sink.writeUtf8(body);
+        }
+        return gzipped;
+    }
+
+    @Test
+    public void separatesWireBytesOfGzippedResponse() throws Exception {
+        String body = clientsJson(200);
+        Buffer gzipped = gzip(body);
+        long wireSize = gzipped.size();
+        server.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip").setBody(gzipped));
+
+        Response<List<Client>> response = clientApi.getClientsPage(0, 200, ClientApi.LIST_FIELDS).execute();
+
+        assertEquals(200, response.body().size());
+        assertEquals("id,fullName,contacts", server.takeRequest().getRequestUrl().queryParameter("fields"));
+        NetworkMetrics.EndpointSnapshot clients = metrics.snapshot().get("GET clients");
+        assertEquals(body.getBytes("UTF-8").length, clients.bytesIn);
+        assertEquals(wireSize, clients.wireBytesIn);
+        assertTrue(clients.compressionRatioIn() > 5);
+    }
+
+    @Test
+    public void cachedResponsesDoNotInflateCompressionRatio() throws Exception {
+        File cacheDir = Files.createTempDirectory("metrics-cache").toFile();
+        Cache cache = new Cache(cacheDir, 1024 * 1024);
+        try {
+            ClientApi cachedApi = createApi(new OkHttpClient.Builder().cache(cache));
+            String body = clientsJson(200);
+            server.enqueue(new MockResponse()
+                    .setHeader("Content-Encoding", "gzip")
+                    .setHeader("Cache-Control", "max-age=60")
+                    .setBody(gzip(body)));
+
+            cachedApi.getClientsPage(0, 200, null).execute();
+            double networkRatio = metrics.snapshot().get("GET clients").compressionRatioIn();
+            // Второй ответ целиком из кэша: в сеть запрос не уходит
+            assertEquals(200, cachedApi.getClientsPage(0, 200, null).execute().body().size());
+
+            NetworkMetrics.EndpointSnapshot clients = metrics.snapshot().get("GET clients");
+            assertEquals(1, server.getRequestCount());
+            assertEquals(2L * body.getBytes("UTF-8").length, clients.bytesIn);
+            assertEquals(body.getBytes("UTF-8").length, clients.networkBytesIn);
+            assertEquals(networkRatio, clients.compressionRatioIn(), 0.0001);
+        } finally {
+            cache.delete();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.restaurantclient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class RequestSchedulerTest {
+    private MockWebServer server;
+    private RequestScheduler scheduler;
+    private OkHttpClient client;
+    // Запросы к /hold отвечают, только когда тест отпустит разрешение
+    private final Semaphore holdPermits = new Semaphore(0);
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> completed = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new okhttp3.mockwebserver.Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                received.add(request.getPath());
+                if (request.getPath().startsWith("/hold")) {
+                    holdPermits.tryAcquire(10, TimeUnit.SECONDS);
+                }
+                return new MockResponse().setBody("ok");
+            }
+        });
+        server.start();
+
+        scheduler = new RequestScheduler(3);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(dispatcher.getMaxRequests());
+        client = new OkHttpClient.Builder()
+                .addInterceptor(scheduler.interceptor())
+                .dispatcher(dispatcher)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        holdPermits.release(100);
+        server.shutdown();
+    }
+
+    private void enqueue(String path, String method, RequestScheduler.Lane lane) {
+        Request.Builder builder = new Request.Builder().url(server.url(path));
+        if ("POST".equals(method)) {
+            builder.post(RequestBody.create("{}", MediaType.get("application/json")));
+        }
+        if (lane != null) {
+            builder.header(RequestScheduler.HEADER, lane.headerValue());
+        }
+        client.newCall(builder.build()).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                completed.add(path);
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                completed.add(path + " failed");
+            }
+        });
+    }
+
+    private void awaitQueued(RequestScheduler.Lane lane, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (scheduler.snapshot().get(lane).queued < count) {
+            assertTrue("queue " + lane + " did not reach " + count, System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void interactiveWriteDoesNotWaitForBackgroundSync() throws Exception {
+        // Фоновая синхронизация заняла свой единственный слот, еще две загрузки ждут
+        enqueue("/hold/sync1", "GET", RequestScheduler.Lane.BACKGROUND);
+        enqueue("/hold/sync2", "GET", RequestScheduler.Lane.BACKGROUND);
+        enqueue("/hold/sync3", "GET", RequestScheduler.Lane.BACKGROUND);
+        // Потоки Dispatcher стартуют в любом порядке - слот достается одной из трех загрузок
+        String started = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(started);
+        assertTrue(started, started.startsWith("/hold/sync"));
+        awaitQueued(RequestScheduler.Lane.BACKGROUND, 2);
+
+        enqueue("/clients?id=1", "POST", null);
+
+        assertEquals("/clients?id=1", completed.poll(5, TimeUnit.SECONDS));
+        RequestScheduler.Snapshot snapshot = scheduler.snapshot();
+        assertEquals(1, snapshot.get(RequestScheduler.Lane.INTERACTIVE).calls);
+        assertEquals(0, snapshot.get(RequestScheduler.Lane.INTERACTIVE).queued);
+        assertEquals(1, snapshot.get(RequestScheduler.Lane.BACKGROUND).running);
+        assertEquals(2, snapshot.get(RequestScheduler.Lane.BACKGROUND).maxQueued);
+        // Маркер приоритета на сервер не уходит
+        assertNull(server.takeRequest().getHeader(RequestScheduler.HEADER));
+    }
+
+    @Test
+    public void freedSlotGoesToHighestPriorityWaiter() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            enqueue("/hold/edit" + i, "POST", null);
+        }
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        }
+        // Все слоты заняты: в очередь встают фоновый, экранный и, последним, интерактивный запрос
+        enqueue("/sync", "GET", RequestScheduler.Lane.BACKGROUND);
+        awaitQueued(RequestScheduler.Lane.BACKGROUND, 1);
+        enqueue("/list", "GET", null);
+        awaitQueued(RequestScheduler.Lane.FOREGROUND, 1);
+        enqueue("/save", "POST", null);
+        awaitQueued(RequestScheduler.Lane.INTERACTIVE, 1);
+
+        holdPermits.release();
+
+        assertEquals("/save", received.poll(5, TimeUnit.SECONDS));
+        assertTrue(scheduler.snapshot().get(RequestScheduler.Lane.INTERACTIVE).waitP99Ms > 0);
+        holdPermits.release(2);
+        // Экранный запрос обгоняет фоновый, вставший в очередь раньше
+        assertEquals("/list", received.poll(5, TimeUnit.SECONDS));
+        assertEquals("/sync", received.poll(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,67 @@
+// JMH-бенчмарки горячих путей клиента (JSON, SessionInterceptor, DiffUtil, поиск и сортировка).
+// Запуск:   ./gradlew :benchmark:jmh
+// Один класс: ./gradlew :benchmark:jmh -PjmhIncludes=ClientJsonBenchmark
+// Результаты в JSON: benchmark/build/results/jmh/results.json - их удобно сравнивать между ветками
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Из AAR RecyclerView для JVM нужен только classes.jar (DiffUtil не зависит от Android)
+val recyclerViewAar: Configuration by configurations.creating
+
+val extractRecyclerViewClasses by tasks.registering(Copy::class) {
+    from({ zipTree(recyclerViewAar.singleFile) }) {
+        include("classes.jar")
+    }
+    into(layout.buildDirectory.dir("recyclerview"))
+}
+
+sourceSets {
+    named("jmh") {
+        java {
+            // Код приложения, не зависящий от Android, компилируется прямо из исходников app,
+            // поэтому бенчмарки всегда меряют текущую версию
+            srcDir("../app/src/main/java")
+            include(
+                "com/example/restaurantclient/benchmark/**",
+                "android/**",
+                "com/example/restaurantclient/models/**",
+                "com/example/restaurantclient/adapter/ClientDiffCallback.java",
+                "com/example/restaurantclient/adapter/ClientSearchIndex.java",
+                "com/example/restaurantclient/adapter/ClientSorter.java",
+                "com/example/restaurantclient/adapter/SectionProvider.java",
+                "com/example/restaurantclient/SessionInterceptor.java",
+                "com/example/restaurantclient/SessionStore.java"
+            )
+        }
+    }
+}
+
+dependencies {
+    recyclerViewAar("androidx.recyclerview:recyclerview:1.3.2@aar")
+
+    // Те же версии, что и в app
+    jmh("com.squareup.retrofit2:converter-gson:2.9.0")
+    jmh("com.squareup.okhttp3:okhttp:4.11.0")
+    jmh("androidx.annotation:annotation:1.3.0")
+    jmh(files(layout.buildDirectory.file("recyclerview/classes.jar")).builtBy(extractRecyclerViewClasses))
+}
+
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    // gc - байты, выделяемые на операцию (gc.alloc.rate.norm)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    if (project.hasProperty("jmhIncludes")) {
+        includes.add(project.property("jmhIncludes").toString())
+    }
+}
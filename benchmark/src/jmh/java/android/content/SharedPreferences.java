@@ -0,0 +1,18 @@
+package android.content;
+
+ // Минимальная копия интерфейса android.content.SharedPreferences - только то,
+ // что нужно SessionStore, чтобы скомпилировать его на обычной JVM
+
+public interface SharedPreferences {
+    String getString(String key, String defValue);
+
+    Editor edit();
+
+    interface Editor {
+        Editor putString(String key, String value);
+
+        Editor remove(String key);
+
+        void apply();
+    }
+}
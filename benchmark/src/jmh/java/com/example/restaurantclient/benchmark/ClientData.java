@@ -0,0 +1,27 @@
+package com.example.restaurantclient.benchmark;
+
+import com.example.restaurantclient.models.Client;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+ // Детерминированные тестовые данные: одни и те же клиенты при каждом запуске
+
+final class ClientData {
+    private static final String[] SURNAMES = {"Иванов", "Петров", "Сидорова", "Ёлкин", "Кузнецова",
+            "Смирнов", "Попова", "Васильев", "Соколов", "Михайлова", "Новиков", "Федорова"};
+    private static final String[] NAMES = {"Иван", "Анна", "Пётр", "Мария", "Олег", "Елена", "Сергей", "Ольга"};
+
+    private ClientData() {}
+
+    static List<Client> clients(int count) {
+        Random random = new Random(42);
+        List<Client> clients = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String fullName = SURNAMES[random.nextInt(SURNAMES.length)] + " " + NAMES[random.nextInt(NAMES.length)];
+            String contacts = "+7 (9" + (10 + random.nextInt(90)) + ") " + (1_000_000 + random.nextInt(9_000_000));
+            clients.add(new Client(i, fullName, contacts));
+        }
+        return clients;
+    }
+}
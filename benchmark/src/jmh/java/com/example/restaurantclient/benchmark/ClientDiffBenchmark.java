@@ -0,0 +1,95 @@
+package com.example.restaurantclient.benchmark;
+
+import com.example.restaurantclient.adapter.ClientDiffCallback;
+import com.example.restaurantclient.models.Client;
+import androidx.recyclerview.widget.DiffUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+ // Расчет разницы списков, который AsyncListDiffer выполняет в фоне при каждом
+ // ClientAdapter.submitList: правка одной строки, добавление строки в начало
+ // и замена страницы после повторной загрузки (1% строк изменился)
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClientDiffBenchmark {
+    @Param({"1000", "10000"})
+    public int size;
+
+    private final ClientDiffCallback itemCallback = new ClientDiffCallback();
+    private List<Client> current;
+    private List<Client> singleEdit;
+    private List<Client> prepended;
+    private List<Client> refreshed;
+
+    @Setup
+    public void setUp() {
+        current = ClientData.clients(size);
+
+        singleEdit = new ArrayList<>(current);
+        Client edited = current.get(size / 2).copy();
+        edited.setFullName(edited.getFullName() + " (изм.)");
+        singleEdit.set(size / 2, edited);
+
+        prepended = new ArrayList<>(current.size() + 1);
+        prepended.add(new Client(-1, "Новый клиент", ""));
+        prepended.addAll(current);
+
+        refreshed = new ArrayList<>(current);
+        for (int i = 0; i < size; i += 100) {
+            Client changed = current.get(i).copy();
+            changed.setContacts("+7 (999) 000-00-00");
+            refreshed.set(i, changed);
+        }
+    }
+
+    @Benchmark
+    public DiffUtil.DiffResult singleEdit() {
+        return diff(current, singleEdit);
+    }
+
+    @Benchmark
+    public DiffUtil.DiffResult prependOne() {
+        return diff(current, prepended);
+    }
+
+    @Benchmark
+    public DiffUtil.DiffResult refreshOnePercentChanged() {
+        return diff(current, refreshed);
+    }
+
+    // То же, что делает AsyncListDiffer.submitList в фоновом потоке
+    private DiffUtil.DiffResult diff(List<Client> oldList, List<Client> newList) {
+        return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return itemCallback.areItemsTheSame(oldList.get(oldItemPosition), newList.get(newItemPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return itemCallback.areContentsTheSame(oldList.get(oldItemPosition), newList.get(newItemPosition));
+            }
+        });
+    }
+}
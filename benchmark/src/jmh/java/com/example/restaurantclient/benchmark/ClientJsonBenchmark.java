@@ -0,0 +1,76 @@
+package com.example.restaurantclient.benchmark;
+
+import com.example.restaurantclient.models.Client;
+import com.example.restaurantclient.models.ModelTypeAdapters;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+ // Разбор ответа GET clients (List<Client>) так же, как это делает GsonConverterFactory:
+ // JsonReader поверх потока байтов. handWritten - адаптеры ModelTypeAdapters (как в ApiClient),
+ // reflective - Gson по умолчанию, для сравнения
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClientJsonBenchmark {
+    private static final TypeToken<List<Client>> CLIENT_LIST = new TypeToken<List<Client>>() {};
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private byte[] json;
+    private TypeAdapter<List<Client>> handWritten;
+    private TypeAdapter<List<Client>> reflective;
+
+    @Setup
+    public void setUp() {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create();
+        handWritten = gson.getAdapter(CLIENT_LIST);
+        reflective = new Gson().getAdapter(CLIENT_LIST);
+        json = gson.toJson(ClientData.clients(size)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Client> handWritten() throws IOException {
+        return read(handWritten);
+    }
+
+    @Benchmark
+    public List<Client> reflective() throws IOException {
+        return read(reflective);
+    }
+
+    // Стоимость первого разбора в процессе: создание адаптера входит в замер
+    @Benchmark
+    public List<Client> handWrittenColdAdapter() throws IOException {
+        return read(new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create().getAdapter(CLIENT_LIST));
+    }
+
+    @Benchmark
+    public List<Client> reflectiveColdAdapter() throws IOException {
+        return read(new Gson().getAdapter(CLIENT_LIST));
+    }
+
+    private List<Client> read(TypeAdapter<List<Client>> adapter) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8))) {
+            return adapter.read(reader);
+        }
+    }
+}
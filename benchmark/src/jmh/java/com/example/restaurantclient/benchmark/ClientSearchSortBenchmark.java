@@ -0,0 +1,95 @@
+package com.example.restaurantclient.benchmark;
+
+import com.example.restaurantclient.adapter.ClientSearchIndex;
+import com.example.restaurantclient.adapter.ClientSorter;
+import com.example.restaurantclient.models.Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+ // Поиск (ClientSearchIndex) и сортировка (ClientSorter) на больших списках.
+ // collatorSortBaseline - сортировка с Collator.compare на каждом сравнении, для сравнения
+ // с кэшированными CollationKey
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClientSearchSortBenchmark {
+    @Param({"10000", "100000"})
+    public int size;
+
+    private List<Client> clients;
+    private ClientSearchIndex index;
+    private ClientSorter sorter;
+    private int editCounter = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clients = ClientData.clients(size);
+        index = new ClientSearchIndex();
+        index.sync(clients);
+        sorter = new ClientSorter();
+        sorter.sync(clients);
+    }
+
+    @Benchmark
+    public List<Client> searchShortPrefix() {
+        return index.filter(clients, "ив");
+    }
+
+    @Benchmark
+    public List<Client> searchSubstring() {
+        return index.filter(clients, "ванов");
+    }
+
+    @Benchmark
+    public List<Client> searchTwoWordsAndPhone() {
+        return index.filter(clients, "сидорова 912");
+    }
+
+    // Правка одной строки: переиндексация только ее
+    @Benchmark
+    public int searchIndexSingleEdit() {
+        int position = editCounter++ % clients.size();
+        Client old = clients.get(position);
+        clients.set(position, new Client(old.getId(), "Петрова Анна " + editCounter, old.getContacts()));
+        index.sync(clients);
+        return index.size();
+    }
+
+    // Правка одной строки: перестановка только ее
+    @Benchmark
+    public List<Client> sorterSingleEdit() {
+        int position = editCounter++ % clients.size();
+        Client old = clients.get(position);
+        clients.set(position, new Client(old.getId(), "Яковлев " + editCounter, old.getContacts()));
+        sorter.sync(clients);
+        return sorter.getSortedList();
+    }
+
+    @Benchmark
+    public List<Client> sorterFullBuild() {
+        ClientSorter fresh = new ClientSorter();
+        fresh.sync(clients);
+        return fresh.getSortedList();
+    }
+
+    @Benchmark
+    public List<Client> collatorSortBaseline() {
+        Collator collator = Collator.getInstance(new Locale("ru"));
+        List<Client> sorted = new ArrayList<>(clients);
+        sorted.sort((a, b) -> collator.compare(a.getFullName(), b.getFullName()));
+        return sorted;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.restaurantclient.benchmark;
+
+import android.content.SharedPreferences;
+import com.example.restaurantclient.SessionInterceptor;
+import com.example.restaurantclient.SessionStore;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+ // SessionInterceptor на фиктивной цепочке: сеть не участвует, меряется только
+ // добавление Cookie к запросу и разбор Set-Cookie в ответе
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SessionInterceptorBenchmark {
+    private static final String SESSION_ID = "8F3A1C2B9D4E5F60718293A4B5C6D7E8";
+
+    private SessionInterceptor interceptor;
+    private FakeChain sameSession;
+    private FakeChain noSetCookie;
+
+    @Setup
+    public void setUp() {
+        SessionStore store = new SessionStore(new MemoryPreferences());
+        store.update(SESSION_ID);
+        interceptor = new SessionInterceptor(store);
+
+        Request request = new Request.Builder().url("http://10.0.2.2:8080/lab6_4kurs/clients").build();
+        // Типичный ответ сервлета: сессия не меняется, но Set-Cookie приходит вместе с другими заголовками
+        Response withCookie = response(request)
+                .addHeader("Content-Type", "application/json;charset=UTF-8")
+                .addHeader("Set-Cookie", "theme=dark; Path=/")
+                .addHeader("Set-Cookie", "JSESSIONID=" + SESSION_ID + "; Path=/lab6_4kurs; HttpOnly")
+                .build();
+        Response plain = response(request)
+                .addHeader("Content-Type", "application/json;charset=UTF-8")
+                .addHeader("Cache-Control", "no-cache")
+                .build();
+        sameSession = new FakeChain(request, withCookie);
+        noSetCookie = new FakeChain(request, plain);
+    }
+
+    @Benchmark
+    public Response responseWithSameSession() throws IOException {
+        return interceptor.intercept(sameSession);
+    }
+
+    @Benchmark
+    public Response responseWithoutSetCookie() throws IOException {
+        return interceptor.intercept(noSetCookie);
+    }
+
+    private static Response.Builder response(Request request) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK");
+    }
+
+    // Цепочка, которая сразу возвращает заранее собранный ответ
+    private static class FakeChain implements Interceptor.Chain {
+        private final Request request;
+        private final Response response;
+
+        FakeChain(Request request, Response response) {
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public Response proceed(Request request) {
+            return response;
+        }
+
+        @Override
+        public Connection connection() {
+            return null;
+        }
+
+        @Override
+        public Call call() {
+            return null;
+        }
+
+        @Override
+        public int connectTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withConnectTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public int readTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withReadTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public int writeTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withWriteTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+    }
+
+    private static class MemoryPreferences implements SharedPreferences, SharedPreferences.Editor {
+        private final Map<String, String> values = new HashMap<>();
+
+        @Override
+        public String getString(String key, String defValue) {
+            return values.getOrDefault(key, defValue);
+        }
+
+        @Override
+        public SharedPreferences.Editor edit() {
+            return this;
+        }
+
+        @Override
+        public SharedPreferences.Editor putString(String key, String value) {
+            values.put(key, value);
+            return this;
+        }
+
+        @Override
+        public SharedPreferences.Editor remove(String key) {
+            values.remove(key);
+            return this;
+        }
+
+        @Override
+        public void apply() {}
+    }
+}
@@ -21,3 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "RestaurantClient"
 include(":app")
+include(":benchmark")